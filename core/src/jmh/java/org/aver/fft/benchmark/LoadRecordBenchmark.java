@@ -0,0 +1,85 @@
+/*
+ *  Copyright 2005 AverConsulting Inc.
+ * 
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.aver.fft.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.aver.fft.BoundDelimitedBean;
+import org.aver.fft.DelimitedBean;
+import org.aver.fft.FixedColBean;
+import org.aver.fft.Transformer;
+import org.aver.fft.TransformerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures loading a delimited and a fixed length record through the column
+ * binders the transformer builds from the annotations at runtime, against the
+ * same delimited record loaded through the record binder the annotation
+ * processor generates for {@link BoundDelimitedBean}. Run with
+ * <code>mvn -Pbenchmarks test-compile exec:exec</code>.
+ * 
+ * @author Mathew Thomas
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoadRecordBenchmark {
+    private static final String DELIMITED_LINE = "Mathew_Thomas 4111111111111111 02 2008 12.89 222 10212005";
+
+    private static final String FIXED_LINE = "Mathew_Thomas4111111111111111022008 12.8922210212005";
+
+    private Transformer delimited;
+
+    private Transformer bound;
+
+    private Transformer fixed;
+
+    @Setup
+    public void setUp() {
+        delimited = TransformerFactory.getTransformer(DelimitedBean.class);
+        bound = TransformerFactory.getTransformer(BoundDelimitedBean.class);
+        fixed = TransformerFactory.getTransformer(FixedColBean.class);
+    }
+
+    @Benchmark
+    public Object delimited() {
+        return delimited.loadRecord(DELIMITED_LINE);
+    }
+
+    @Benchmark
+    public Object delimitedBinder() {
+        return bound.loadRecord(DELIMITED_LINE);
+    }
+
+    @Benchmark
+    public Object fixed() {
+        return fixed.loadRecord(FIXED_LINE);
+    }
+}
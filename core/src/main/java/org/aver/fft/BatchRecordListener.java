@@ -0,0 +1,41 @@
+/*
+ *  Copyright 2005 AverConsulting Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.aver.fft;
+
+/**
+ * Register an implementation of this listener to get the records of a file in
+ * batches instead of one call per record, for instance to write them with
+ * JDBC batch inserts. The batch size is set with
+ * {@link ParseOptions#withBatchSize(int)}.
+ * 
+ * @author Mathew Thomas
+ * @see RecordListener
+ */
+public interface BatchRecordListener {
+    /**
+     * Notifies the listener of the next batch of lines read from the file.
+     * The batch holds both the loaded beans and the lines that could not be
+     * loaded, with their line numbers. The same batch instance is reused for
+     * the next call, so copy out anything you keep.
+     * 
+     * @param batch
+     *            records read since the previous batch
+     * @return return true to continue reading more records, or a false to abort
+     *         parsing of rest of file.
+     */
+    public boolean foundRecords(RecordBatch batch);
+}
@@ -32,4 +32,16 @@ package org.aver.fft;
  */
 public interface BeanFactory {
     Object createBean(String className);
+
+    /**
+     * Creates a bean of the given class. The transformer always calls this
+     * method; the default implementation delegates to
+     * {@link #createBean(String)} with the class name.
+     * 
+     * @param clazz
+     *            destination bean class
+     */
+    default Object createBean(Class<?> clazz) {
+        return createBean(clazz.getName());
+    }
 }
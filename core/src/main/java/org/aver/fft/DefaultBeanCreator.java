@@ -0,0 +1,183 @@
+/*
+ *  Copyright 2005 AverConsulting Inc.
+ * 
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.aver.fft;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Default implementation of the BeanFactory interface. The bean class must have
+ * a default constructor for this to work.
+ * <p>
+ * A class is validated and its constructor resolved the first time a bean of
+ * that class is requested. After that creating a bean is a single constructor
+ * call.
+ * 
+ * @author Mathew Thomas
+ */
+public class DefaultBeanCreator implements BeanFactory {
+    // Block dangerous classes that could be used for RCE
+    private static final String[] BLACKLISTED_PREFIXES = {
+        "java.lang.Runtime",
+        "java.lang.ProcessBuilder",
+        "java.lang.System",
+        "java.lang.Class",
+        "java.lang.Thread",
+        "java.security.",
+        "java.net.",
+        "java.io.File",
+        "java.io.FileInputStream",
+        "java.io.FileOutputStream",
+        "java.nio.file.",
+        "javax.script.",
+        "sun.",
+        "com.sun.",
+        "jdk.internal.",
+        "org.springframework.context.",
+        "org.apache.commons.beanutils.BeanUtils"
+    };
+
+    /** Default constructors of the validated bean classes, as () -> Object. */
+    private static final ClassValue<MethodHandle> CONSTRUCTORS = new ClassValue<>() {
+        @Override
+        protected MethodHandle computeValue(Class<?> type) {
+            // Security: Ensure class is safe to instantiate
+            if (isBlacklistedClass(type.getName()) || !isSafeClass(type)) {
+                throw new TransformerException("Class not allowed for security reasons: " + type.getName());
+            }
+
+            try {
+                return MethodHandles.lookup()
+                        .unreflectConstructor(type.getDeclaredConstructor())
+                        .asType(MethodType.methodType(Object.class));
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                throw new TransformerException(e);
+            }
+        }
+    };
+
+    /** Classes already resolved by {@link #createBean(String)}. */
+    private final Map<String, Class<?>> classes = new ConcurrentHashMap<>();
+
+    /**
+     * Creates an instance of the destination bean using its default
+     * constructor.
+     * 
+     * @param name
+     *            of the destination bean
+     */
+    @Override
+    public Object createBean(String className) {
+        // Security: Validate class name to prevent RCE attacks
+        if (className == null || className.trim().isEmpty()) {
+            throw new TransformerException("Class name cannot be null or empty");
+        }
+
+        Class<?> clazz = classes.get(className);
+        if (clazz == null) {
+            // Security: Prevent dangerous class loading
+            if (isBlacklistedClass(className)) {
+                throw new TransformerException("Class name not allowed for security reasons: " + className);
+            }
+
+            try {
+                clazz = Class.forName(className);
+            } catch (ClassNotFoundException e) {
+                throw new TransformerException(e);
+            }
+            classes.put(className, clazz);
+        }
+        return createBean(clazz);
+    }
+
+    /**
+     * Creates an instance of the destination bean using its default
+     * constructor.
+     * 
+     * @param clazz
+     *            destination bean class
+     */
+    @Override
+    public Object createBean(Class<?> clazz) {
+        if (clazz == null) {
+            throw new TransformerException("Class cannot be null");
+        }
+
+        MethodHandle constructor = CONSTRUCTORS.get(clazz);
+        try {
+            return constructor.invokeExact();
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new TransformerException("Could not create bean " + clazz.getName(), e);
+        }
+    }
+    
+    /**
+     * Security: Check if class name is blacklisted
+     */
+    private static boolean isBlacklistedClass(String className) {
+        for (String prefix : BLACKLISTED_PREFIXES) {
+            if (className.regionMatches(true, 0, prefix, 0, prefix.length())) {
+                return true;
+            }
+        }
+        
+        return false;
+    }
+    
+    /**
+     * Security: Check if class is safe to instantiate
+     */
+    private static boolean isSafeClass(Class<?> clazz) {
+        // Additional runtime checks
+        if (clazz.isPrimitive() || clazz.isArray()) {
+            return false;
+        }
+        
+        // Check if class has dangerous interfaces or superclasses
+        if (isAssignableFromDangerousClass(clazz)) {
+            return false;
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Security: Check if class extends/implements dangerous classes
+     */
+    private static boolean isAssignableFromDangerousClass(Class<?> clazz) {
+        try {
+            // Check for dangerous interfaces/superclasses
+            if (java.lang.Runtime.class.isAssignableFrom(clazz) ||
+                java.lang.ProcessBuilder.class.isAssignableFrom(clazz) ||
+                java.lang.ClassLoader.class.isAssignableFrom(clazz) ||
+                java.lang.Thread.class.isAssignableFrom(clazz)) {
+                return true;
+            }
+        } catch (Exception e) {
+            // If we can't check safely, assume it's dangerous
+            return true;
+        }
+        
+        return false;
+    }
+
+}
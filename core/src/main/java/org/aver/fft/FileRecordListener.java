@@ -0,0 +1,73 @@
+/*
+ *  Copyright 2005 AverConsulting Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.aver.fft;
+
+import java.nio.file.Path;
+
+/**
+ * Register an implementation of this listener to parse several files at once
+ * (see {@link Transformer#parseFlatFiles(java.util.Collection,
+ * FileRecordListener, int)}). Every record comes with the file and the line
+ * it was read from.
+ * <p>
+ * The files are parsed concurrently, so the listener is called from several
+ * threads at the same time and must be thread safe. The calls for any one
+ * file are made one after the other, from the same thread.
+ * 
+ * @author Mathew Thomas
+ * @see RecordListener
+ */
+public interface FileRecordListener {
+    /**
+     * Notifies the listener of a record loaded from a file.
+     * 
+     * @param file
+     *            file the record was read from
+     * @param lineNumber
+     *            line of the record in the file, starting at 1
+     * @param bean
+     *            the loaded bean
+     * @return true to continue reading the file, or false to stop reading
+     *         this file (the other files are still read)
+     */
+    public boolean foundRecord(Path file, long lineNumber, Object bean);
+
+    /**
+     * Notifies the listener of a line that could not be loaded.
+     * 
+     * @param file
+     *            file the line was read from
+     * @param lineNumber
+     *            line number in the file, starting at 1
+     * @param rec
+     *            unparsed record line
+     * @return true to continue reading the file, or false to stop reading
+     *         this file
+     */
+    public boolean unresolvableRecord(Path file, long lineNumber, String rec);
+
+    /**
+     * Notifies the listener that a file was read to the end, stopped, or
+     * failed. Called once for every file.
+     * 
+     * @param result
+     *            outcome of the file
+     */
+    public default void fileCompleted(FileResult result) {
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ *  Copyright 2005 AverConsulting Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.aver.fft;
+
+import java.nio.file.Path;
+
+/**
+ * Outcome of parsing one of the files passed to
+ * {@link Transformer#parseFlatFiles(java.util.Collection, FileRecordListener, int)}.
+ * 
+ * @param file
+ *            the file
+ * @param records
+ *            number of records loaded
+ * @param unresolved
+ *            number of lines that could not be loaded
+ * @param stopped
+ *            true if the listener asked to stop before the end of the file
+ * @param failure
+ *            why the file could not be read to the end, or null. A
+ *            {@link TransformerLimitException} if a limit was exceeded;
+ *            exceptions thrown by the listener are wrapped.
+ * @author Mathew Thomas
+ */
+public record FileResult(Path file, long records, long unresolved,
+        boolean stopped, TransformerException failure) {
+    /**
+     * @return true if the file was parsed without failure
+     */
+    public boolean succeeded() {
+        return failure == null;
+    }
+}
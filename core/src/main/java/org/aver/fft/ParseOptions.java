@@ -0,0 +1,131 @@
+/*
+ *  Copyright 2005 AverConsulting Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.aver.fft;
+
+/**
+ * Options that control how {@link Transformer#parseFlatFile(java.io.File,
+ * RecordListener, ParseOptions)} reads a file. Start from {@link #defaults()}
+ * and change what you need:
+ * 
+ * <pre>
+ * spec.parseFlatFile(file, listener, ParseOptions.defaults().withMemoryMapped(true));
+ * </pre>
+ * 
+ * @param memoryMapped
+ *            map the file into memory and find the lines and columns
+ *            directly in the mapped bytes, instead of reading it through a
+ *            <code>Reader</code>. Only the columns loaded into the bean are
+ *            turned into strings. Suited to large files.
+ * @param parallelism
+ *            number of threads that parse the file. Above 1 the file is split
+ *            at line boundaries into byte ranges that are parsed on a
+ *            <code>ForkJoinPool</code> (always through a memory mapping). The
+ *            listener is still called from the calling thread only, but the
+ *            bean factory is called from the parsing threads. A quoted
+ *            column that holds a line break where the file is split fails
+ *            the parse with a {@link TransformerException}; such files must
+ *            be parsed with a parallelism of 1.
+ * @param ordered
+ *            with a parallelism above 1, deliver the records in file order
+ *            (the default) or in whatever order the ranges finish. Unordered,
+ *            the line numbers handed out (for instance by a
+ *            {@link RecordBatch}) count the lines in the order they are
+ *            delivered and do not point into the file; <code>maxLines</code>
+ *            still fails once more lines than that have been read
+ * @param batchSize
+ *            number of lines handed to a {@link BatchRecordListener} at a
+ *            time
+ * @param pipelined
+ *            read, load and deliver in separate stages on their own threads:
+ *            one thread reads the lines, <code>parallelism</code> threads
+ *            load them into beans and the calling thread hands them to the
+ *            listener in file order. Works for input streams as well as files
+ *            and takes precedence over the byte range splitting above.
+ * @param statistics
+ *            counters a pipelined parse reports its queue depth and stalls
+ *            to, from {@link PipelineStatistics#create()}, or null
+ * @param reuseBeans
+ *            load every record into the same bean instead of creating one
+ *            per line, so that a parse allocates nothing per record for
+ *            primitive and dedupe columns. The listener must not keep the
+ *            bean, or any mutable value of it, after
+ *            {@link RecordListener#foundRecord(Object)} returns; it is loaded
+ *            with the next record. A pipelined parse keeps one bean per
+ *            queued line. Not supported with a {@link BatchRecordListener} or
+ *            with a parallelism above 1 that is not pipelined, as their beans
+ *            are all alive at once.
+ * @author Mathew Thomas
+ */
+public record ParseOptions(boolean memoryMapped, int parallelism,
+        boolean ordered, int batchSize, boolean pipelined,
+        PipelineStatistics statistics, boolean reuseBeans) {
+    private static final ParseOptions DEFAULTS = new ParseOptions(false, 1,
+            true, 1000, false, null, false);
+
+    public ParseOptions {
+        if (parallelism < 1) {
+            throw new TransformerException("Parallelism must be at least 1: "
+                    + parallelism);
+        }
+        if (batchSize < 1) {
+            throw new TransformerException("Batch size must be at least 1: "
+                    + batchSize);
+        }
+    }
+
+    /**
+     * @return the options used when none are given
+     */
+    public static ParseOptions defaults() {
+        return DEFAULTS;
+    }
+
+    public ParseOptions withMemoryMapped(boolean memoryMapped) {
+        return new ParseOptions(memoryMapped, parallelism, ordered, batchSize,
+                pipelined, statistics, reuseBeans);
+    }
+
+    public ParseOptions withParallelism(int parallelism) {
+        return new ParseOptions(memoryMapped, parallelism, ordered, batchSize,
+                pipelined, statistics, reuseBeans);
+    }
+
+    public ParseOptions withOrdered(boolean ordered) {
+        return new ParseOptions(memoryMapped, parallelism, ordered, batchSize,
+                pipelined, statistics, reuseBeans);
+    }
+
+    public ParseOptions withBatchSize(int batchSize) {
+        return new ParseOptions(memoryMapped, parallelism, ordered, batchSize,
+                pipelined, statistics, reuseBeans);
+    }
+
+    public ParseOptions withPipelined(boolean pipelined) {
+        return new ParseOptions(memoryMapped, parallelism, ordered, batchSize,
+                pipelined, statistics, reuseBeans);
+    }
+
+    public ParseOptions withStatistics(PipelineStatistics statistics) {
+        return new ParseOptions(memoryMapped, parallelism, ordered, batchSize,
+                pipelined, statistics, reuseBeans);
+    }
+
+    public ParseOptions withReuseBeans(boolean reuseBeans) {
+        return new ParseOptions(memoryMapped, parallelism, ordered, batchSize,
+                pipelined, statistics, reuseBeans);
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ *  Copyright 2005 AverConsulting Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.aver.fft;
+
+import org.aver.fft.impl.PipelineCounters;
+
+/**
+ * Counters kept by a pipelined parse (see {@link ParseOptions#pipelined()}).
+ * A stall is counted each time a stage has to wait for another one: the
+ * reader for a free slot in the queue, a binder for lines to load, or the
+ * listener for the next batch in file order. The stage that stalls least is
+ * the one holding the others back. The queue depth is the number of batches
+ * read but not yet delivered to the listener.
+ * <p>
+ * The counters can be read while the file is being parsed, only the parser
+ * updates them. One instance may be passed to several parses, in which case
+ * the counts add up. Instances are created with {@link #create()}; the
+ * interface is not meant to be implemented, a pipelined parse rejects
+ * statistics of any other class with a {@link TransformerException}.
+ * 
+ * @author Mathew Thomas
+ */
+public interface PipelineStatistics {
+    /**
+     * @return new counters, all zero, to pass to
+     *         {@link ParseOptions#withStatistics(PipelineStatistics)}
+     */
+    public static PipelineStatistics create() {
+        return new PipelineCounters();
+    }
+
+    /**
+     * @return number of batches of lines read
+     */
+    public long getBatches();
+
+    /**
+     * @return batches currently queued between the reader and the listener
+     */
+    public long getQueueDepth();
+
+    /**
+     * @return most batches that were queued at once
+     */
+    public long getMaxQueueDepth();
+
+    /**
+     * @return times the reader waited because the queue was full
+     */
+    public long getReaderStalls();
+
+    /**
+     * @return times a binder thread waited for lines to load
+     */
+    public long getBinderStalls();
+
+    /**
+     * @return times the listener waited for the next batch to be loaded
+     */
+    public long getListenerStalls();
+}
@@ -0,0 +1,68 @@
+/*
+ *  Copyright 2005 AverConsulting Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.aver.fft;
+
+import java.util.List;
+
+/**
+ * A batch of lines read from a file and handed to a
+ * {@link BatchRecordListener}: the beans loaded from the lines, and the lines
+ * that could not be loaded, each with its line number in the file. With
+ * unordered parallel parsing the line numbers only count the lines in
+ * delivery order, see {@link ParseOptions#withOrdered(boolean)}.
+ * <p>
+ * The transformer fills and reuses one batch for the whole file. Its contents
+ * are only valid during the listener call.
+ * 
+ * @author Mathew Thomas
+ */
+public interface RecordBatch {
+    /**
+     * @return number of beans in the batch
+     */
+    public int size();
+
+    /**
+     * @return the beans in the batch, in file order; a view that is only valid
+     *         during the listener call
+     */
+    public List<Object> getRecords();
+
+    public Object getRecord(int index);
+
+    /**
+     * @return line number of the bean at the index, starting at 1
+     */
+    public long getLineNumber(int index);
+
+    /**
+     * @return number of lines in the batch that could not be loaded
+     */
+    public int unresolvedSize();
+
+    public String getUnresolvedLine(int index);
+
+    /**
+     * @return line number of the unresolved line at the index, starting at 1
+     */
+    public long getUnresolvedLineNumber(int index);
+
+    /**
+     * @return true if the batch holds no lines at all
+     */
+    public boolean isEmpty();
+}
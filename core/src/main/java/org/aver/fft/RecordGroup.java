@@ -1,28 +1,38 @@
-/*
- *  Copyright 2005 AverConsulting Inc.
- * 
- *  Licensed under the Apache License, Version 2.0 (the "License");
- *  you may not use this file except in compliance with the License.
- *  You may obtain a copy of the License at
- *
- *      http://www.apache.org/licenses/LICENSE-2.0
- *
- *  Unless required by applicable law or agreed to in writing, software
- *  distributed under the License is distributed on an "AS IS" BASIS,
- *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- *  See the License for the specific language governing permissions and
- *  limitations under the License.
- *
- */
-
-package org.aver.fft.impl;
-
-import java.util.Iterator;
-
-interface TokenIterator extends Iterator<String> {
-    public int getInt();
-
-    public long getLong();
-
-    public String getString();
-}
+/*
+ *  Copyright 2005 AverConsulting Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.aver.fft;
+
+import java.util.List;
+
+/**
+ * A header record, the detail records that follow it and the trailer record
+ * that closes them, as assembled by a {@link RecordGroupAssembler}.
+ * 
+ * @param header
+ *            the header, or null if the group had none
+ * @param details
+ *            the detail records, in file order; an unmodifiable copy
+ * @param trailer
+ *            the trailer, or null if the group was not closed
+ * @author Mathew Thomas
+ */
+public record RecordGroup<H, D, T>(H header, List<D> details, T trailer) {
+    public RecordGroup {
+        details = List.copyOf(details);
+    }
+}
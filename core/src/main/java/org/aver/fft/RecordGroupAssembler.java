@@ -0,0 +1,217 @@
+/*
+ *  Copyright 2005 AverConsulting Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.aver.fft;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Groups the records of a file holding several record types (see
+ * {@link TransformerFactory#getTransformer(Class...)}) into header, details
+ * and trailer, and hands each group to a {@link RecordGroupListener} as soon
+ * as its trailer is read. Register it as the {@link RecordListener} of the
+ * parse:
+ * 
+ * <pre>
+ * RecordGroupAssembler&lt;BatchHeader, BatchDetail, BatchTrailer&gt; assembler = new RecordGroupAssembler&lt;&gt;(
+ *         BatchHeader.class, BatchDetail.class, BatchTrailer.class, listener)
+ *         .validateCount(BatchTrailer::getCount)
+ *         .validateTotal(BatchDetail::getAmount, BatchTrailer::getTotal);
+ * spec.parseFlatFile(file, assembler);
+ * </pre>
+ * 
+ * Only the records of the open group are held, so memory is bounded by the
+ * largest group rather than the file; {@link #maxDetails(int)} bounds it
+ * further. The counts and totals are kept as the details arrive and checked
+ * against the trailer when it is read.
+ * <p>
+ * An assembler holds the state of one parse and is not thread safe; use a
+ * new one for every file.
+ * 
+ * @author Mathew Thomas
+ */
+public class RecordGroupAssembler<H, D, T> implements RecordListener {
+    private final Class<H> headerType;
+
+    private final Class<D> detailType;
+
+    private final Class<T> trailerType;
+
+    private final RecordGroupListener<H, D, T> listener;
+
+    private ToLongFunction<? super T> expectedCount;
+
+    private Function<? super D, BigDecimal> amount;
+
+    private Function<? super T, BigDecimal> expectedTotal;
+
+    private int maxDetails = Integer.MAX_VALUE;
+
+    /** True while a group is being read. */
+    private boolean open;
+
+    private H header;
+
+    private final List<D> details = new ArrayList<>();
+
+    private BigDecimal total = BigDecimal.ZERO;
+
+    public RecordGroupAssembler(Class<H> headerType, Class<D> detailType,
+            Class<T> trailerType, RecordGroupListener<H, D, T> listener) {
+        if (headerType == null || detailType == null || trailerType == null) {
+            throw new TransformerException("Header, detail and trailer types must be specified");
+        }
+        if (listener == null) {
+            throw new TransformerException("RecordGroupListener cannot be null");
+        }
+        this.headerType = headerType;
+        this.detailType = detailType;
+        this.trailerType = trailerType;
+        this.listener = listener;
+    }
+
+    /**
+     * Checks the number of details of each group against the count in its
+     * trailer.
+     * 
+     * @param expectedCount
+     *            reads the detail count from the trailer
+     * @return this assembler
+     */
+    public RecordGroupAssembler<H, D, T> validateCount(ToLongFunction<? super T> expectedCount) {
+        this.expectedCount = expectedCount;
+        return this;
+    }
+
+    /**
+     * Checks the sum of an amount over the details of each group against the
+     * total in its trailer. The amounts are summed as decimals, so the total
+     * must match exactly; details without an amount add nothing.
+     * 
+     * @param amount
+     *            reads the amount of a detail
+     * @param expectedTotal
+     *            reads the total from the trailer
+     * @return this assembler
+     */
+    public RecordGroupAssembler<H, D, T> validateTotal(Function<? super D, BigDecimal> amount,
+            Function<? super T, BigDecimal> expectedTotal) {
+        this.amount = amount;
+        this.expectedTotal = expectedTotal;
+        return this;
+    }
+
+    /**
+     * Fails parsing with a {@link TransformerLimitException} when a group has
+     * more details than this.
+     * 
+     * @param maxDetails
+     *            most details in a group
+     * @return this assembler
+     */
+    public RecordGroupAssembler<H, D, T> maxDetails(int maxDetails) {
+        if (maxDetails < 1) {
+            throw new TransformerException("Max details must be at least 1: " + maxDetails);
+        }
+        this.maxDetails = maxDetails;
+        return this;
+    }
+
+    @Override
+    public boolean foundRecord(Object o) {
+        if (headerType.isInstance(o)) {
+            boolean continueReading = !open || invalid("header before the trailer of the previous group");
+            open = true;
+            header = headerType.cast(o);
+            return continueReading;
+        }
+        if (detailType.isInstance(o)) {
+            if (details.size() == maxDetails) {
+                throw new TransformerLimitException("Record group has more than "
+                        + maxDetails + " details");
+            }
+            D detail = detailType.cast(o);
+            open = true;
+            details.add(detail);
+            if (amount != null) {
+                BigDecimal value = amount.apply(detail);
+                if (value != null) {
+                    total = total.add(value);
+                }
+            }
+            return true;
+        }
+        if (trailerType.isInstance(o)) {
+            return close(trailerType.cast(o));
+        }
+        throw new TransformerException("Not a header, detail or trailer record: "
+                + (o == null ? null : o.getClass().getName()));
+    }
+
+    @Override
+    public boolean unresolvableRecord(String rec) {
+        return listener.unresolvableRecord(rec);
+    }
+
+    @Override
+    public void finished() {
+        if (open) {
+            invalid("end of file before the trailer");
+        }
+    }
+
+    private boolean close(T trailer) {
+        RecordGroup<H, D, T> group = new RecordGroup<>(header, details, trailer);
+        String reason = null;
+        if (header == null) {
+            reason = "trailer without a header";
+        } else if (expectedCount != null
+                && expectedCount.applyAsLong(trailer) != details.size()) {
+            reason = "trailer count " + expectedCount.applyAsLong(trailer)
+                    + " but " + details.size() + " details";
+        } else if (expectedTotal != null) {
+            BigDecimal expected = expectedTotal.apply(trailer);
+            if (expected == null || total.compareTo(expected) != 0) {
+                reason = "trailer total " + expected + " but details add up to " + total;
+            }
+        }
+        reset();
+        return reason == null ? listener.foundGroup(group)
+                : listener.invalidGroup(group, reason);
+    }
+
+    /**
+     * Hands the open group to the listener as invalid and starts over.
+     */
+    private boolean invalid(String reason) {
+        RecordGroup<H, D, T> group = new RecordGroup<>(header, details, null);
+        reset();
+        return listener.invalidGroup(group, reason);
+    }
+
+    private void reset() {
+        open = false;
+        header = null;
+        // the groups handed out hold a copy
+        details.clear();
+        total = BigDecimal.ZERO;
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ *  Copyright 2005 AverConsulting Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.aver.fft;
+
+/**
+ * Register an implementation of this listener with a
+ * {@link RecordGroupAssembler} to receive header, detail and trailer records
+ * as one group.
+ * 
+ * @author Mathew Thomas
+ * @see RecordListener
+ */
+public interface RecordGroupListener<H, D, T> {
+    /**
+     * Notifies the listener of a group that is complete and valid, as soon as
+     * its trailer was read.
+     * 
+     * @param group
+     *            the header, details and trailer
+     * @return true to continue reading more records, or false to abort
+     *         parsing of rest of file.
+     */
+    public boolean foundGroup(RecordGroup<H, D, T> group);
+
+    /**
+     * Notifies the listener of a group that is out of order (such as details
+     * without a header, or a header or the end of the file before the
+     * trailer) or whose trailer does not match its details. By default parsing
+     * fails with a {@link TransformerParseException}.
+     * 
+     * @param group
+     *            the records read for the group
+     * @param reason
+     *            what is wrong with the group
+     * @return true to continue reading more records, or false to abort
+     *         parsing of rest of file.
+     */
+    public default boolean invalidGroup(RecordGroup<H, D, T> group, String reason) {
+        throw new TransformerParseException("Invalid record group: " + reason);
+    }
+
+    /**
+     * Notifies the listener that the transformer could not load a line.
+     * Ignored by default.
+     * 
+     * @param rec
+     *            unparsed record line from file
+     * @return true to continue reading more records, or false to abort
+     *         parsing of rest of file.
+     */
+    public default boolean unresolvableRecord(String rec) {
+        return true;
+    }
+}
@@ -10,6 +10,8 @@ public interface RecordListener {
     /**
      * Notifies the listener that a record line matched a java object in the
      * transformer specification and passes in the initialized java object.
+     * When parsing with {@link ParseOptions#reuseBeans()} the same object is
+     * passed again for the next records, so it must not be kept.
      * 
      * @param o
      *            java object representing the record
@@ -28,4 +30,11 @@ public interface RecordListener {
      *         parsing of rest of file.
      */
     public boolean unresolvableRecord(String rec);
+
+    /**
+     * Notifies the listener that the whole file was read. Not called when the
+     * listener asked to stop or parsing failed.
+     */
+    public default void finished() {
+    }
 }
@@ -0,0 +1,248 @@
+/*
+ *  Copyright 2005 AverConsulting Inc.
+ * 
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.aver.fft;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.stream.Stream;
+
+/**
+ * Transforms a text string to a java object. Supports two modes of operation.
+ * In one mode you can pass a line to the transformer and get back a java object
+ * with the initialized data. In the second approach you can pass in the entire
+ * file and expect to receive notifications for each line in the file (with
+ * either the java object or the line itself if the transformed could not map it
+ * to a java class).
+ * 
+ * @author Mathew Thomas
+ */
+public interface Transformer {
+    enum ColumnSeparator {
+        CHARACTER, FIXLENGTH
+    };
+
+    /**
+     * Loads the record into an instance of the specified type.
+     * 
+     * @param line the line to parse
+     * @return the parsed object
+     * @throws TransformerException if error occurs while parsing the line
+     */
+    public Object loadRecord(String line);
+
+    /**
+     * Parses the file and for every record matched, notifies the listener with
+     * the fully loaded bean. If record could not be matched then notify the
+     * listener with the record line so that it may do any custom processing.
+     * 
+     * @param file
+     *            file to parse
+     * @param listener
+     *            listener to notify found and notfound events
+     */
+    public void parseFlatFile(File file, RecordListener listener);
+
+    /**
+     * Same as {@link #parseFlatFile(File, RecordListener)}, reading the file
+     * as set in the options, for instance through a memory mapping.
+     * 
+     * @param file
+     *            file to parse
+     * @param listener
+     *            listener to notify found and notfound events
+     * @param options
+     *            how to read the file
+     */
+    public void parseFlatFile(File file, RecordListener listener,
+            ParseOptions options);
+
+    /**
+     * Parses the file and for every record matched, notifies the listener with
+     * the fully loaded bean. If record could not be matched then notify the
+     * listener with the record line so that it may do any custom processing.
+     * 
+     * @param stream
+     *            Input stream with file contents to parse
+     * @param listener
+     *            listener to notify found and notfound events
+     */
+    public void parseFlatFile(InputStream stream, RecordListener listener);
+
+    /**
+     * Same as {@link #parseFlatFile(InputStream, RecordListener)}, parsing as
+     * set in the options, for instance in a pipeline.
+     * 
+     * @param stream
+     *            Input stream with file contents to parse
+     * @param listener
+     *            listener to notify found and notfound events
+     * @param options
+     *            how to parse the stream
+     */
+    public void parseFlatFile(InputStream stream, RecordListener listener,
+            ParseOptions options);
+
+    /**
+     * Parses the file and notifies the listener with batches of records, the
+     * size of which is set in the options. Lines that could not be loaded are
+     * reported in the same batches.
+     * 
+     * @param file
+     *            file to parse
+     * @param listener
+     *            listener to notify with each batch
+     * @param options
+     *            how to read the file and the batch size
+     */
+    public void parseFlatFile(File file, BatchRecordListener listener,
+            ParseOptions options);
+
+    /**
+     * Parses the stream and notifies the listener with batches of records, the
+     * size of which is set in the options.
+     * 
+     * @param stream
+     *            Input stream with file contents to parse
+     * @param listener
+     *            listener to notify with each batch
+     * @param options
+     *            the batch size
+     */
+    public void parseFlatFile(InputStream stream,
+            BatchRecordListener listener, ParseOptions options);
+
+    /**
+     * Parses several files at the same time, each on a virtual thread, and
+     * notifies the listener of the records of all of them, tagged with their
+     * file and line number. At most <code>maxOpenFiles</code> files are open
+     * at once by this call; the cap is not shared with other calls, which
+     * each open up to their own cap. A file that fails does not stop the
+     * others; its failure is in its result.
+     * 
+     * @param files
+     *            files to parse
+     * @param listener
+     *            listener to notify, from several threads at once
+     * @param maxOpenFiles
+     *            most files parsed at the same time
+     * @return the result of each file, in the order of the files
+     */
+    public List<FileResult> parseFlatFiles(Collection<Path> files,
+            FileRecordListener listener, int maxOpenFiles);
+
+    /**
+     * Same as {@link #parseFlatFiles(Collection, FileRecordListener, int)},
+     * reading each file as set in the options.
+     * 
+     * @param files
+     *            files to parse
+     * @param listener
+     *            listener to notify, from several threads at once
+     * @param maxOpenFiles
+     *            most files parsed at the same time
+     * @param options
+     *            how to read each file
+     * @return the result of each file, in the order of the files
+     */
+    public List<FileResult> parseFlatFiles(Collection<Path> files,
+            FileRecordListener listener, int maxOpenFiles, ParseOptions options);
+
+    /**
+     * Same as {@link #parseFlatFiles(Collection, FileRecordListener, int)},
+     * for the files in the directory whose names match a glob pattern such as
+     * <code>partner-*.txt</code>.
+     * 
+     * @param directory
+     *            directory holding the files
+     * @param glob
+     *            pattern the file names must match
+     * @param listener
+     *            listener to notify, from several threads at once
+     * @param maxOpenFiles
+     *            most files parsed at the same time
+     * @return the result of each file, in name order
+     */
+    public List<FileResult> parseFlatFiles(Path directory, String glob,
+            FileRecordListener listener, int maxOpenFiles);
+
+    /**
+     * Same as {@link #parseFlatFiles(Path, String, FileRecordListener, int)},
+     * reading each file as set in the options.
+     * 
+     * @param directory
+     *            directory holding the files
+     * @param glob
+     *            pattern the file names must match
+     * @param listener
+     *            listener to notify, from several threads at once
+     * @param maxOpenFiles
+     *            most files parsed at the same time
+     * @param options
+     *            how to read each file
+     * @return the result of each file, in name order
+     */
+    public List<FileResult> parseFlatFiles(Path directory, String glob,
+            FileRecordListener listener, int maxOpenFiles, ParseOptions options);
+
+    /**
+     * Returns a lazy stream of the beans loaded from the file. The stream can
+     * be made parallel, in which case different parts of the file are parsed
+     * on different threads. A line that cannot be loaded fails the stream with
+     * a {@link TransformerParseException}. A parallel stream also fails, with a
+     * {@link TransformerException}, when a quoted column holds a line break
+     * where the file is split; such files must be streamed sequentially. The
+     * stream must be closed to close the file.
+     * 
+     * @param file
+     *            file to read
+     * @return stream of beans, in file order
+     */
+    public <T> Stream<T> stream(Path file);
+
+    /**
+     * Returns a lazy stream of the beans loaded from the input stream. A line
+     * that cannot be loaded fails the stream with a
+     * {@link TransformerParseException}. Closing the stream closes the input
+     * stream.
+     * 
+     * @param stream
+     *            Input stream with file contents to read
+     * @return stream of beans, in input order
+     */
+    public <T> Stream<T> stream(InputStream stream);
+
+    /**
+     * Returns a publisher of the beans loaded from the file. Records are
+     * parsed on the executor only as subscribers request them, so a slow
+     * subscriber holds the parser back rather than records being buffered.
+     * Every subscriber reads the file from the start. A line that cannot be
+     * loaded fails the subscription with a {@link TransformerParseException}.
+     * 
+     * @param file
+     *            file to read
+     * @param executor
+     *            executor to parse on and to signal the subscribers from
+     * @return publisher of beans, in file order
+     */
+    public <T> Flow.Publisher<T> publisher(Path file, Executor executor);
+}
\ No newline at end of file
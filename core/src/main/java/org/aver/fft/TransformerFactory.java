@@ -0,0 +1,119 @@
+/*
+ *  Copyright 2005 AverConsulting Inc.
+ * 
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.aver.fft;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ServiceLoader;
+
+import org.aver.fft.impl.FlatFileTransformer;
+import org.aver.fft.spi.RecordBinder;
+
+/**
+ * Factory class used to initialize and retrieve an instance of the
+ * <code>Transformer</code>. Transformers are immutable and thread-safe, so
+ * one instance is built per class and handed out on every call.
+ * 
+ * @author Mathew Thomas
+ */
+public class TransformerFactory {
+    /**
+     * Binders generated at build time, looked up once per bean class through
+     * the {@link ServiceLoader} of the bean's class loader.
+     */
+    private static final ClassValue<RecordBinder> BINDERS = new ClassValue<>() {
+        @Override
+        protected RecordBinder computeValue(Class<?> type) {
+            for (RecordBinder binder : ServiceLoader.load(RecordBinder.class,
+                    type.getClassLoader())) {
+                if (binder.getBeanClass() == type) {
+                    return binder;
+                }
+            }
+            return null;
+        }
+    };
+
+    /** Transformer of each bean class, built on first use. */
+    private static final ClassValue<Transformer> TRANSFORMERS = new ClassValue<>() {
+        @Override
+        protected Transformer computeValue(Class<?> type) {
+            return new FlatFileTransformer(type, BINDERS.get(type));
+        }
+    };
+
+    /**
+     * Private constructor to force usage via the factory method.
+     */
+    private TransformerFactory() {
+        // no implementation
+    }
+
+    /**
+     * Returns an initialized <code>Transformer</code> instance. If a
+     * {@link RecordBinder} was generated for the class at build time it is
+     * used to load the records, otherwise the annotations are read at runtime.
+     * The transformer is created on the first call for a class and the same
+     * instance is returned afterwards.
+     * 
+     * @param clazz
+     *            class annotated with @Transform annotation
+     * @return transformer instance
+     */
+    public static Transformer getTransformer(final Class<?> clazz) {
+        // Type-safe approach: validate that the class is compatible
+        if (clazz == null) {
+            throw new TransformerException("Class cannot be null");
+        }
+        
+        return TRANSFORMERS.get(clazz);
+    }
+
+    /**
+     * Returns a <code>Transformer</code> that reads lines of any of the
+     * classes from one file, for instance the header, detail and trailer
+     * records of a batch file. Each class names the value of the record
+     * identifier column that marks its lines with
+     * {@link org.aver.fft.annotations.Transform#recordIdentifier()}; each line
+     * is loaded into the class its identifier names, and lines with an unknown
+     * identifier are unresolvable. The column separator, header line and
+     * charset of the first class apply to the whole file, and of the limits
+     * the strictest one of any class applies.
+     * <p>
+     * A new transformer is created on every call with more than one class, so
+     * keep the instance rather than asking for it again.
+     * 
+     * @param classes
+     *            classes annotated with @Transform annotation
+     * @return transformer instance
+     */
+    public static Transformer getTransformer(final Class<?>... classes) {
+        if (classes == null || classes.length == 0) {
+            throw new TransformerException("Class cannot be null");
+        }
+        if (classes.length == 1) {
+            return getTransformer(classes[0]);
+        }
+
+        List<FlatFileTransformer> types = new ArrayList<>(classes.length);
+        for (Class<?> clazz : classes) {
+            types.add((FlatFileTransformer) getTransformer(clazz));
+        }
+        return new FlatFileTransformer(types);
+    }
+}
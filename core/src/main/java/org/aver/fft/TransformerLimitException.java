@@ -0,0 +1,16 @@
+package org.aver.fft;
+
+/**
+ * Indicates that the input exceeded one of the limits configured on the
+ * {@link org.aver.fft.annotations.Transform} annotation, such as the maximum
+ * line length or the maximum number of lines in a file. Parsing stops when a
+ * limit is hit.
+ * 
+ * @author Mathew Thomas
+ */
+@SuppressWarnings("serial")
+public class TransformerLimitException extends TransformerException {
+    public TransformerLimitException(String msg) {
+        super(msg);
+    }
+}
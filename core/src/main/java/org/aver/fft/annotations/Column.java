@@ -19,4 +19,13 @@ public @interface Column {
     int start() default 0;
 
     int end() default 0;
+
+    /**
+     * Share one <code>String</code> instance between the records that hold
+     * the same value in this column, for low cardinality columns such as
+     * state codes or record types. Values are looked up in a bounded
+     * dictionary of the transformer before any string is created. Only
+     * applies to <code>String</code> properties.
+     */
+    boolean dedupe() default false;
 }
@@ -0,0 +1,81 @@
+package org.aver.fft.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.aver.fft.Transformer;
+
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Transform {
+    Transformer.ColumnSeparator columnSeparatorType() default Transformer.ColumnSeparator.CHARACTER;
+
+    /**
+     * Separator of delimited columns, one or more characters such as
+     * <code>","</code>, <code>"\t"</code> or <code>"||"</code>.
+     */
+    String columnSeparator() default " ";
+
+    /**
+     * Count a run of consecutive separators as one, and ignore separators at
+     * the start and end of a line, as for space aligned reports. Empty
+     * columns can then only be written as <code>""</code>.
+     */
+    boolean collapseSeparators() default false;
+
+    String beanCreator() default "org.aver.fft.DefaultBeanCreator";
+
+    boolean skipFirstLine() default false;
+
+    /**
+     * Charset of the files, for instance <code>"UTF-8"</code> or
+     * <code>"ISO-8859-1"</code>. Empty (the default) means the platform
+     * default charset. Files in charsets that encode ASCII as single bytes,
+     * such as UTF-8, US-ASCII, ISO-8859 and windows-125x, are split into
+     * lines and columns on their bytes without decoding them through a
+     * <code>Reader</code>.
+     */
+    String charset() default "";
+
+    /**
+     * Longest line, in characters, that is accepted. Records are read one
+     * line at a time, so this is what bounds the memory used while parsing a
+     * file of any size. A longer line fails with a
+     * {@link org.aver.fft.TransformerLimitException}. Zero or less means no
+     * limit.
+     */
+    int maxLineLength() default 100_000;
+
+    /**
+     * Most lines read from a file before parsing fails with a
+     * {@link org.aver.fft.TransformerLimitException}. Zero or less (the
+     * default) means no limit.
+     */
+    long maxLines() default 0;
+
+    /**
+     * Largest file, in bytes, that <code>parseFlatFile(File, ...)</code>
+     * accepts; a larger file is rejected with a
+     * {@link org.aver.fft.TransformerLimitException} before it is read. Zero
+     * or less (the default) means no limit.
+     */
+    long maxFileSize() default 0;
+
+    /**
+     * Value that marks the lines of this class when several classes are read
+     * from one file (see
+     * {@link org.aver.fft.TransformerFactory#getTransformer(Class...)}), for
+     * instance <code>"H"</code> for a header record. Compared with the record
+     * identifier column exactly, without trimming.
+     */
+    String recordIdentifier() default "";
+
+    /**
+     * Where the record identifier is found. For delimited records this is the
+     * column position (starting from 1); for fixed length records it is the
+     * character position (starting from 1) at which the identifier starts.
+     */
+    int recordIdentifierColumn() default 1;
+}
\ No newline at end of file
@@ -0,0 +1,156 @@
+/*
+ *  Copyright 2005 AverConsulting Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.aver.fft.impl;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.aver.fft.RecordBatch;
+import org.aver.fft.TransformerException;
+
+/**
+ * The {@link RecordBatch} a {@link RecordSink} fills with up to a fixed number
+ * of lines, hands to the listener and empties again.
+ * 
+ * @author Mathew Thomas
+ */
+final class ArrayRecordBatch implements RecordBatch {
+    private final Object[] records;
+
+    private final long[] recordLines;
+
+    private String[] unresolved = new String[16];
+
+    private long[] unresolvedLines = new long[16];
+
+    private int size;
+
+    private int unresolvedSize;
+
+    private final List<Object> recordList = new AbstractList<>() {
+        @Override
+        public Object get(int index) {
+            return getRecord(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    };
+
+    /**
+     * @param capacity
+     *            most lines held by the batch
+     */
+    ArrayRecordBatch(int capacity) {
+        if (capacity < 1) {
+            throw new TransformerException("Batch capacity must be at least 1: " + capacity);
+        }
+        this.records = new Object[capacity];
+        this.recordLines = new long[capacity];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public List<Object> getRecords() {
+        return recordList;
+    }
+
+    @Override
+    public Object getRecord(int index) {
+        return records[checkIndex(index, size)];
+    }
+
+    @Override
+    public long getLineNumber(int index) {
+        return recordLines[checkIndex(index, size)];
+    }
+
+    @Override
+    public int unresolvedSize() {
+        return unresolvedSize;
+    }
+
+    @Override
+    public String getUnresolvedLine(int index) {
+        return unresolved[checkIndex(index, unresolvedSize)];
+    }
+
+    @Override
+    public long getUnresolvedLineNumber(int index) {
+        return unresolvedLines[checkIndex(index, unresolvedSize)];
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0 && unresolvedSize == 0;
+    }
+
+    /**
+     * @return true if the batch holds as many lines as its capacity
+     */
+    boolean isFull() {
+        return size + unresolvedSize >= records.length;
+    }
+
+    void addRecord(Object record, long lineNumber) {
+        checkCapacity();
+        records[size] = record;
+        recordLines[size++] = lineNumber;
+    }
+
+    void addUnresolved(String line, long lineNumber) {
+        checkCapacity();
+        if (unresolvedSize == unresolved.length) {
+            int capacity = Math.min(records.length, unresolvedSize * 2);
+            unresolved = Arrays.copyOf(unresolved, capacity);
+            unresolvedLines = Arrays.copyOf(unresolvedLines, capacity);
+        }
+        unresolved[unresolvedSize] = line;
+        unresolvedLines[unresolvedSize++] = lineNumber;
+    }
+
+    /**
+     * Empties the batch so that it can be filled again.
+     */
+    void clear() {
+        Arrays.fill(records, 0, size, null);
+        Arrays.fill(unresolved, 0, unresolvedSize, null);
+        size = 0;
+        unresolvedSize = 0;
+    }
+
+    private void checkCapacity() {
+        if (isFull()) {
+            throw new TransformerException("Batch is full, it holds at most "
+                    + records.length + " lines");
+        }
+    }
+
+    private static int checkIndex(int index, int length) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + length);
+        }
+        return index;
+    }
+}
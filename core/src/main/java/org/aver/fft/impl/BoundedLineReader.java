@@ -0,0 +1,129 @@
+/*
+ *  Copyright 2005 AverConsulting Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.aver.fft.impl;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+/**
+ * Reads lines from a <code>Reader</code> into one reused buffer that never
+ * grows past the maximum line length, so reading a file of any size takes
+ * the same memory. Like {@link java.io.BufferedReader#readLine()}, a line
+ * ends at <code>\n</code>, <code>\r</code> or <code>\r\n</code>.
+ * 
+ * @author Mathew Thomas
+ */
+final class BoundedLineReader implements FlatFileTransformer.LineSource {
+    private final Reader in;
+
+    private final int maxLineLength;
+
+    private final char[] buf = new char[8192];
+
+    private int pos;
+
+    private int limit;
+
+    private char[] line = new char[256];
+
+    /** Returned for every line, rewrapped when the line buffer grows. */
+    private CharBuffer view = CharBuffer.wrap(line);
+
+    /** Set after a <code>\r</code>, to drop the <code>\n</code> that may follow. */
+    private boolean skipLf;
+
+    private long lineNumber;
+
+    BoundedLineReader(Reader in, int maxLineLength) {
+        this.in = in;
+        this.maxLineLength = maxLineLength;
+    }
+
+    /**
+     * Reads the next line. The returned sequence is only valid until the next
+     * call.
+     * 
+     * @return the line without its terminator, or <code>null</code> at the end
+     *         of the stream
+     * @throws org.aver.fft.TransformerLimitException
+     *             if the line is longer than the maximum line length
+     */
+    @Override
+    public CharSequence readLine() throws IOException {
+        int length = 0;
+        boolean read = false;
+        for (;;) {
+            if (pos == limit) {
+                limit = in.read(buf, 0, buf.length);
+                pos = 0;
+                if (limit < 0) {
+                    limit = 0;
+                    if (!read) {
+                        return null;
+                    }
+                    lineNumber++;
+                    return view(length);
+                }
+            }
+            if (skipLf) {
+                skipLf = false;
+                if (buf[pos] == '\n') {
+                    pos++;
+                    continue;
+                }
+            }
+
+            read = true;
+            int start = pos;
+            while (pos < limit && buf[pos] != '\n' && buf[pos] != '\r') {
+                pos++;
+            }
+
+            int n = pos - start;
+            if (length + n > maxLineLength) {
+                throw FlatFileTransformer.lineTooLong(lineNumber + 1, maxLineLength);
+            }
+            if (length + n > line.length) {
+                line = Arrays.copyOf(line, Math.min(maxLineLength,
+                        Math.max(line.length * 2, length + n)));
+            }
+            System.arraycopy(buf, start, line, length, n);
+            length += n;
+
+            if (pos < limit) {
+                skipLf = buf[pos++] == '\r';
+                lineNumber++;
+                return view(length);
+            }
+        }
+    }
+
+    private CharBuffer view(int length) {
+        if (view.array() != line) {
+            view = CharBuffer.wrap(line);
+        }
+        view.clear().limit(length);
+        return view;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
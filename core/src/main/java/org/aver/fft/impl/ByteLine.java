@@ -0,0 +1,92 @@
+/*
+ *  Copyright 2005 AverConsulting Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.aver.fft.impl;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * A line of ASCII (or ISO-8859-1) text held in a byte buffer, read as characters without
+ * decoding the whole line. Only the columns that are asked for as strings get
+ * copied out of the buffer.
+ * <p>
+ * Instances are reused from line to line and are only valid until the reader
+ * moves on.
+ * 
+ * @author Mathew Thomas
+ */
+final class ByteLine implements CharSequence {
+    private ByteBuffer buffer;
+
+    private int offset;
+
+    private int length;
+
+    /**
+     * Points this line at a range of the buffer.
+     * 
+     * @return this line
+     */
+    ByteLine set(ByteBuffer buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+        return this;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        Objects.checkIndex(index, length);
+        return (char) (buffer.get(offset + index) & 0xff);
+    }
+
+    /**
+     * Returns the index of the first occurrence of the character in the
+     * range, or -1. Scans the bytes a word at a time.
+     */
+    int indexOf(char c, int from, int to) {
+        Objects.checkFromToIndex(from, to, length);
+        if (c > 0xff) {
+            return -1;
+        }
+        int i = ByteScanner.indexOf(buffer, (byte) c, offset + from, offset + to);
+        return i < 0 ? -1 : i - offset;
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        Objects.checkFromToIndex(start, end, length);
+        return new ByteLine().set(buffer, offset + start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        if (buffer.hasArray()) {
+            return new String(buffer.array(), buffer.arrayOffset() + offset,
+                    length, StandardCharsets.ISO_8859_1);
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(offset, bytes);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+}
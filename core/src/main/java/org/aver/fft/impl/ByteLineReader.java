@@ -0,0 +1,210 @@
+/*
+ *  Copyright 2005 AverConsulting Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.aver.fft.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads lines from an <code>InputStream</code> in a charset that encodes
+ * ASCII as single bytes (see {@link #isAsciiCompatible(Charset)}), without a
+ * <code>Reader</code>. Line ends are found in the bytes, eight at a time with
+ * {@link ByteScanner}, and lines that are plain ASCII (any line, for
+ * ISO-8859-1) are returned as a {@link ByteLine} over the buffer, so columns
+ * are found in the bytes and only the columns asked for as strings are copied
+ * out, as compact Latin-1 strings. Other lines are decoded with the charset.
+ * <p>
+ * Like {@link BoundedLineReader} the buffer never grows past the longest line
+ * allowed, and a line ends at <code>\n</code>, <code>\r</code> or
+ * <code>\r\n</code>.
+ * 
+ * @author Mathew Thomas
+ */
+final class ByteLineReader implements FlatFileTransformer.LineSource {
+    private static final long LF = ByteScanner.pattern((byte) '\n');
+
+    private static final long CR = ByteScanner.pattern((byte) '\r');
+
+    private final InputStream in;
+
+    private final Charset charset;
+
+    /** Every byte is a character of its own, no line needs decoding. */
+    private final boolean latin1;
+
+    private final int maxLineLength;
+
+    /** Most bytes a line of the longest length can take. */
+    private final int maxBytes;
+
+    private byte[] buf = new byte[64 * 1024];
+
+    private ByteBuffer view = ByteBuffer.wrap(buf);
+
+    private final ByteLine line = new ByteLine();
+
+    /** Start of the next line. */
+    private int pos;
+
+    private int limit;
+
+    /** Set after a <code>\r</code> at the end of the buffer. */
+    private boolean skipLf;
+
+    private long lineNumber;
+
+    ByteLineReader(InputStream in, Charset charset, int maxLineLength) {
+        this.in = in;
+        this.charset = charset;
+        this.latin1 = charset.equals(StandardCharsets.ISO_8859_1);
+        this.maxLineLength = maxLineLength;
+        this.maxBytes = (int) Math.min(Integer.MAX_VALUE - 16, (long) maxLineLength
+                * (long) Math.ceil(charset.newEncoder().maxBytesPerChar()) + 1);
+    }
+
+    /**
+     * @return whether lines in the charset can be split on ASCII bytes: every
+     *         ASCII character is one byte and no byte of a multi-byte
+     *         character is in the ASCII range
+     */
+    static boolean isAsciiCompatible(Charset charset) {
+        String name = charset.name();
+        return name.equals("US-ASCII") || name.equals("UTF-8")
+                || name.startsWith("ISO-8859-") || name.startsWith("windows-125");
+    }
+
+    /**
+     * Reads the next line. The returned sequence is only valid until the next
+     * call.
+     * 
+     * @return the line without its terminator, or <code>null</code> at the end
+     *         of the stream
+     * @throws org.aver.fft.TransformerLimitException
+     *             if the line is longer than the maximum line length
+     */
+    @Override
+    public CharSequence readLine() throws IOException {
+        if (skipLf) {
+            if (pos == limit && !fill()) {
+                return null;
+            }
+            skipLf = false;
+            if (buf[pos] == '\n') {
+                pos++;
+            }
+        }
+
+        long bits = 0;
+        int i = pos;
+        for (;;) {
+            while (i < limit) {
+                if (i + Long.BYTES <= limit) {
+                    // eight bytes at a time while a whole word is left
+                    long word = ByteScanner.word(buf, i);
+                    long ends = ByteScanner.matches(word, LF) | ByteScanner.matches(word, CR);
+                    if (ends == 0) {
+                        bits |= word;
+                        i += Long.BYTES;
+                        continue;
+                    }
+                    bits |= ByteScanner.before(word, ends);
+                    i += Long.numberOfTrailingZeros(ends) >>> 3;
+                    break;
+                }
+                byte b = buf[i];
+                if (b == '\n' || b == '\r') {
+                    break;
+                }
+                bits |= b;
+                i++;
+            }
+
+            if (i < limit) {
+                int start = pos;
+                pos = i + 1;
+                if (buf[i] == '\r') {
+                    if (pos < limit) {
+                        if (buf[pos] == '\n') {
+                            pos++;
+                        }
+                    } else {
+                        skipLf = true;
+                    }
+                }
+                lineNumber++;
+                return line(start, i, bits);
+            }
+
+            int scanned = i - pos;
+            if (!fill()) {
+                if (pos == limit) {
+                    return null;
+                }
+                // last line has no terminator
+                int start = pos;
+                pos = limit;
+                lineNumber++;
+                return line(start, limit, bits);
+            }
+            i = pos + scanned;
+        }
+    }
+
+    private CharSequence line(int start, int end, long bits) {
+        if (!ByteScanner.nonAscii(bits) || latin1) {
+            return line.set(view, start, end - start);
+        }
+        return new String(buf, start, end - start, charset);
+    }
+
+    /**
+     * Reads more bytes after the current line, moving it to the start of the
+     * buffer.
+     * 
+     * @return false at the end of the stream
+     */
+    private boolean fill() throws IOException {
+        if (pos > 0) {
+            System.arraycopy(buf, pos, buf, 0, limit - pos);
+            limit -= pos;
+            pos = 0;
+        }
+        if (limit == buf.length) {
+            if (buf.length >= maxBytes) {
+                throw FlatFileTransformer.lineTooLong(lineNumber + 1, maxLineLength);
+            }
+            buf = Arrays.copyOf(buf, (int) Math.min(maxBytes, buf.length * 2L));
+            view = ByteBuffer.wrap(buf);
+        }
+        int n = in.read(buf, limit, buf.length - limit);
+        if (n < 0) {
+            return false;
+        }
+        limit += n;
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
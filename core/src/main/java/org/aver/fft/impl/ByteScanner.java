@@ -0,0 +1,125 @@
+/*
+ *  Copyright 2005 AverConsulting Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.aver.fft.impl;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Finds bytes eight at a time. Each step reads a <code>long</code> and tests
+ * all of its bytes at once with plain arithmetic (SIMD within a register), so
+ * separators, quotes and line ends are found without a branch per byte.
+ * Works on any JVM and any buffer; the tail of a range shorter than a word is
+ * scanned a byte at a time.
+ * <p>
+ * For a word <code>x</code>, <code>(x - 0x01..01) &amp; ~x &amp; 0x80..80</code>
+ * has the high bit set in the lowest byte of <code>x</code> that is zero (and
+ * possibly in higher ones), so XOR-ing the word with the byte looked for
+ * repeated eight times and taking the lowest set bit gives its first
+ * position.
+ *
+ * @author Mathew Thomas
+ */
+final class ByteScanner {
+    private static final long ONES = 0x0101010101010101L;
+
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
+    private static final VarHandle LONGS = MethodHandles
+            .byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private ByteScanner() {
+    }
+
+    /**
+     * @return a word with the byte in all eight positions
+     */
+    static long pattern(byte b) {
+        return ONES * (b & 0xff);
+    }
+
+    /**
+     * @return high bit of every byte of the word that matches the pattern,
+     *         exact up to the first match
+     */
+    static long matches(long word, long pattern) {
+        long x = word ^ pattern;
+        return (x - ONES) & ~x & HIGH_BITS;
+    }
+
+    /**
+     * @return whether any byte of the word is outside ASCII
+     */
+    static boolean nonAscii(long word) {
+        return (word & HIGH_BITS) != 0;
+    }
+
+    /**
+     * @return bytes of the word below the first match, with the others zeroed
+     */
+    static long before(long word, long matches) {
+        int shift = Long.numberOfTrailingZeros(matches) & ~7;
+        return word & ((1L << shift) - 1);
+    }
+
+    /**
+     * Reads eight bytes of the array, first byte lowest.
+     */
+    static long word(byte[] bytes, int index) {
+        return (long) LONGS.get(bytes, index);
+    }
+
+    /**
+     * Reads eight bytes of the buffer at an absolute index, first byte lowest.
+     */
+    static long word(ByteBuffer buffer, int index) {
+        long word = buffer.getLong(index);
+        return buffer.order() == ByteOrder.LITTLE_ENDIAN ? word : Long.reverseBytes(word);
+    }
+
+    /**
+     * Returns the index of the first byte in the range of the buffer, or -1.
+     *
+     * @param buffer
+     *            bytes to search, indexed absolutely
+     * @param b
+     *            byte to find
+     * @param from
+     *            first index
+     * @param to
+     *            end of the range, exclusive
+     */
+    static int indexOf(ByteBuffer buffer, byte b, int from, int to) {
+        long pattern = pattern(b);
+        int i = from;
+        for (; i + Long.BYTES <= to; i += Long.BYTES) {
+            long found = matches(word(buffer, i), pattern);
+            if (found != 0) {
+                return i + (Long.numberOfTrailingZeros(found) >>> 3);
+            }
+        }
+        for (; i < to; i++) {
+            if (buffer.get(i) == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -33,7 +33,8 @@ record Column(
     int index,
     boolean skip,
     int startColumn,
-    int endColumn
+    int endColumn,
+    boolean dedupe
 ) {
     
     /**
@@ -48,14 +49,21 @@ record Column(
      */
     public Column(String name, String type, boolean required, int index,
             String dateFormat, boolean skip) {
-        this(processName(name), type, required, dateFormat, index, skip, 0, 0);
+        this(processName(name), type, required, dateFormat, index, skip, 0, 0, false);
     }
     
     /**
      * Creates column with start and end positions for fixed-width columns.
      */
     public Column withFixedPositions(int startColumn, int endColumn) {
-        return new Column(name, type, required, dateFormat, index, skip, startColumn, endColumn);
+        return new Column(name, type, required, dateFormat, index, skip, startColumn, endColumn, dedupe);
+    }
+    
+    /**
+     * Creates column that shares the strings of repeated values.
+     */
+    public Column withDedupe(boolean dedupe) {
+        return new Column(name, type, required, dateFormat, index, skip, startColumn, endColumn, dedupe);
     }
     
     /**
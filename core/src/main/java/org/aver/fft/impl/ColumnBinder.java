@@ -0,0 +1,218 @@
+/*
+ *  Copyright 2005 AverConsulting Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.aver.fft.impl;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+
+import org.aver.fft.TransformerException;
+import org.aver.fft.TransformerParseException;
+
+/**
+ * Copies one column of a tokenized record into the bean. The setter is
+ * resolved into a {@link MethodHandle} and the type converter is picked once,
+ * when the record format is read, so binding a record is a plain loop of
+ * setter calls. Primitive <code>int</code>, <code>long</code>,
+ * <code>double</code> and <code>boolean</code> properties are parsed straight
+ * from the column span of the line and passed to the setter unboxed, so they
+ * create no garbage. String columns marked for dedupe are looked up in the
+ * dictionary of the record by their span, so repeated values create no
+ * garbage either.
+ *
+ * @author Mathew Thomas
+ */
+final class ColumnBinder {
+    /** Setter call shape used by every binder: (bean, value) -> void. */
+    private static final MethodType SETTER_TYPE = MethodType.methodType(
+            void.class, Object.class, Object.class);
+
+    /** How the value is passed to the setter. */
+    private enum Kind {
+        OBJECT, INT, LONG, DOUBLE, BOOLEAN, SHARED_STRING
+    }
+
+    private final Kind kind;
+
+    private final Column column;
+
+    private final int position;
+
+    private final Method writeMethod;
+
+    private final MethodHandle setter;
+
+    private final ValueConverter converter;
+
+    private final StringDictionary dictionary;
+
+    private ColumnBinder(Column column, Method writeMethod, Kind kind,
+            MethodHandle setter, ValueConverter converter,
+            StringDictionary dictionary) {
+        this.column = column;
+        this.kind = kind;
+        this.position = column.index();
+        this.writeMethod = writeMethod;
+        this.setter = setter;
+        this.converter = converter;
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * Compiles the binder for the column.
+     *
+     * @param col
+     *            column metadata
+     * @param property
+     *            bean property the column is bound to
+     * @param dictionary
+     *            dictionary the column strings are shared through, or
+     *            <code>null</code>
+     * @return the binder or <code>null</code> if the property has no setter
+     * @throws TransformerException
+     *             if the property type is not supported or the setter cannot
+     *             be accessed
+     */
+    static ColumnBinder compile(Column col, PropertyDescriptor property,
+            StringDictionary dictionary) {
+        Method writeMethod = property.getWriteMethod();
+        if (writeMethod == null) {
+            return null;
+        }
+
+        Class<?> type = property.getPropertyType();
+        if (dictionary != null && !isString(type)) {
+            throw notString(col);
+        }
+        Kind kind = dictionary != null ? Kind.SHARED_STRING
+                : type == int.class ? Kind.INT
+                : type == long.class ? Kind.LONG
+                : type == double.class ? Kind.DOUBLE
+                : type == boolean.class ? Kind.BOOLEAN
+                : Kind.OBJECT;
+        MethodHandle setter = unreflect(col, writeMethod);
+        // primitive setters keep their parameter type, for invokeExact
+        setter = setter.asType(kind == Kind.OBJECT || kind == Kind.SHARED_STRING ? SETTER_TYPE
+                : MethodType.methodType(void.class, Object.class, type));
+        return new ColumnBinder(col, writeMethod, kind, setter,
+                ValueConverter.forType(col, type), dictionary);
+    }
+
+    /**
+     * Returns the handle of the setter. A setter of a class that is not
+     * public, such as a package private bean, is looked up with private
+     * access to its class.
+     *
+     * @throws TransformerException
+     *             if the package of the class is not open to this library
+     */
+    private static MethodHandle unreflect(Column col, Method writeMethod) {
+        try {
+            return MethodHandles.publicLookup().unreflect(writeMethod);
+        } catch (IllegalAccessException e) {
+            // not public, retry with access to the declaring class
+        }
+        try {
+            return MethodHandles.privateLookupIn(writeMethod.getDeclaringClass(),
+                    MethodHandles.lookup()).unreflect(writeMethod);
+        } catch (IllegalAccessException e) {
+            throw new TransformerException("Setter " + writeMethod.getName()
+                    + " of column " + col.name() + " is not accessible", e);
+        }
+    }
+
+    /**
+     * @return whether a property of the type is set from the column string
+     *         as is
+     */
+    static boolean isString(Class<?> type) {
+        return type == String.class || type == CharSequence.class
+                || type == Object.class;
+    }
+
+    /**
+     * Error raised when dedupe is asked for on a column that is not a string.
+     */
+    static TransformerException notString(Column col) {
+        return new TransformerException("Column " + col.name()
+                + " is not a String, dedupe is only supported on String columns");
+    }
+
+    /**
+     * @return column this binder loads
+     */
+    Column getColumn() {
+        return column;
+    }
+
+    /**
+     * @return setter of the bean property
+     */
+    Method getWriteMethod() {
+        return writeMethod;
+    }
+
+    /**
+     * @return converter from the column value to the property type
+     */
+    ValueConverter getConverter() {
+        return converter;
+    }
+
+    /**
+     * @return dictionary the column strings are shared through, or
+     *         <code>null</code>
+     */
+    StringDictionary getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * Converts the column value and sets it on the bean.
+     *
+     * @param bean
+     *            bean to load
+     * @param tokens
+     *            tokenized record
+     * @throws TransformerParseException
+     *             if the value cannot be converted or the setter fails
+     */
+    void bind(Object bean, TokenList tokens) {
+        try {
+            switch (kind) {
+                case INT -> setter.invokeExact(bean, tokens.getInt(position));
+                case LONG -> setter.invokeExact(bean, tokens.getLong(position));
+                case DOUBLE -> setter.invokeExact(bean, tokens.getDouble(position));
+                case BOOLEAN -> setter.invokeExact(bean, tokens.getBoolean(position));
+                case SHARED_STRING -> setter.invokeExact(bean, (Object) tokens.get(position, dictionary));
+                default -> setter.invokeExact(bean, converter.convert(tokens.get(position)));
+            }
+        } catch (TransformerException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new TransformerParseException(e);
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new TransformerParseException("Could not set column "
+                    + column.name(), e);
+        }
+    }
+}
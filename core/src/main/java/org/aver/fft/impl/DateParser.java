@@ -0,0 +1,230 @@
+/*
+ *  Copyright 2005 AverConsulting Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.aver.fft.impl;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
+import java.util.Date;
+import java.util.TimeZone;
+
+import org.aver.fft.TransformerException;
+import org.aver.fft.TransformerParseException;
+
+/**
+ * Parses the dates of one column. Compiled once per column from its format,
+ * and safe to share between threads.
+ * <p>
+ * Formats made only of fixed width <code>yyyy</code>, <code>MM</code> and
+ * <code>dd</code> fields and separators (<code>MMddyyyy</code>,
+ * <code>yyyyMMdd</code>, <code>yyyy-MM-dd</code>, ...) are read with plain
+ * arithmetic. Anything else, and values the arithmetic does not accept (such
+ * as the out of range days a lenient <code>SimpleDateFormat</code> rolls
+ * over), go to a <code>SimpleDateFormat</code> per thread for
+ * <code>java.util.Date</code> or a <code>DateTimeFormatter</code> for the
+ * <code>java.time</code> types. The last values parsed are kept in a small
+ * cache, as files often repeat the same date on thousands of lines.
+ *
+ * @author Mathew Thomas
+ */
+final class DateParser {
+    /** Entries in the cache of recent values, a power of two. */
+    private static final int CACHE_SIZE = 64;
+
+    /** A recently parsed value; Dates are kept as their time in millis. */
+    private record Entry(String text, Object value) {
+    }
+
+    private final Class<?> type;
+
+    private final String pattern;
+
+    private final ThreadLocal<SimpleDateFormat> dateFormat;
+
+    private final DateTimeFormatter formatter;
+
+    /** Offsets of the fixed width fields, or -1 if not a fixed format. */
+    private final int yearAt;
+
+    private final int monthAt;
+
+    private final int dayAt;
+
+    /** Written without locking; a lost update only costs a cache miss. */
+    private final Entry[] cache = new Entry[CACHE_SIZE];
+
+    private DateParser(Class<?> type, String pattern) {
+        this.type = type;
+        this.pattern = pattern;
+        if (type == Date.class) {
+            this.dateFormat = ThreadLocal.withInitial(() -> new SimpleDateFormat(pattern));
+            this.formatter = null;
+        } else {
+            this.dateFormat = null;
+            this.formatter = pattern.isEmpty() ? isoFormatter(type)
+                    : DateTimeFormatter.ofPattern(pattern);
+        }
+
+        int year = pattern.indexOf("yyyy");
+        int month = pattern.indexOf("MM");
+        int day = pattern.indexOf("dd");
+        boolean fixed = year >= 0 && month >= 0 && day >= 0;
+        for (int i = 0; fixed && i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            boolean field = (i >= year && i < year + 4)
+                    || (i >= month && i < month + 2) || (i >= day && i < day + 2);
+            // any other letter is a field the arithmetic does not read
+            fixed = field || !Character.isLetter(c) && c != '\'';
+        }
+        fixed &= pattern.length() == 8 + countLiterals(pattern);
+        this.yearAt = fixed ? year : -1;
+        this.monthAt = fixed ? month : -1;
+        this.dayAt = fixed ? day : -1;
+    }
+
+    /**
+     * Compiles the parser for a column.
+     *
+     * @param col
+     *            column with the date format
+     * @param type
+     *            <code>Date</code>, <code>LocalDate</code>,
+     *            <code>LocalDateTime</code> or <code>Instant</code>
+     * @throws TransformerException
+     *             if the format is not valid
+     */
+    static DateParser compile(Column col, Class<?> type) {
+        try {
+            return new DateParser(type, col.dateFormat() == null ? "" : col.dateFormat());
+        } catch (IllegalArgumentException e) {
+            throw new TransformerException("Invalid date format " + col.dateFormat()
+                    + " for column " + col.name() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return the value as the column type
+     * @throws TransformerParseException
+     *             if the value is not a date in the format
+     */
+    Object parse(String text) {
+        int slot = text.hashCode() & (CACHE_SIZE - 1);
+        Entry entry = cache[slot];
+        Object value;
+        if (entry != null && entry.text().equals(text)) {
+            value = entry.value();
+        } else {
+            value = parseUncached(text);
+            cache[slot] = new Entry(text, value);
+        }
+        // a Date is mutable, every bean gets its own
+        return value instanceof Long millis ? new Date(millis) : value;
+    }
+
+    private Object parseUncached(String text) {
+        LocalDate date = yearAt >= 0 ? fixedDate(text) : null;
+        try {
+            if (type == Date.class) {
+                if (date != null) {
+                    return date.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                }
+                SimpleDateFormat format = dateFormat.get();
+                format.setTimeZone(TimeZone.getDefault());
+                return format.parse(text).getTime();
+            }
+            if (type == LocalDate.class) {
+                return date != null ? date : LocalDate.from(formatter.parse(text));
+            }
+            if (type == LocalDateTime.class) {
+                return date != null ? date.atStartOfDay()
+                        : formatter.parseBest(text, LocalDateTime::from, LocalDate::from)
+                                instanceof LocalDate d ? d.atStartOfDay()
+                                : LocalDateTime.from(formatter.parse(text));
+            }
+            if (date != null) {
+                return date.atStartOfDay(ZoneId.systemDefault()).toInstant();
+            }
+            TemporalAccessor parsed = formatter.parseBest(text, Instant::from,
+                    LocalDateTime::from, LocalDate::from);
+            return parsed instanceof Instant instant ? instant
+                    : parsed instanceof LocalDateTime dateTime
+                            ? dateTime.atZone(ZoneId.systemDefault()).toInstant()
+                            : ((LocalDate) parsed).atStartOfDay(ZoneId.systemDefault()).toInstant();
+        } catch (ParseException | DateTimeException e) {
+            throw new TransformerParseException(e);
+        }
+    }
+
+    /**
+     * Reads a valid date from a fixed width value.
+     *
+     * @return the date, or null to leave the value to the formatter
+     */
+    private LocalDate fixedDate(String text) {
+        if (text.length() != pattern.length()) {
+            return null;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            boolean field = (i >= yearAt && i < yearAt + 4)
+                    || (i >= monthAt && i < monthAt + 2) || (i >= dayAt && i < dayAt + 2);
+            if (field ? c < '0' || c > '9' : c != pattern.charAt(i)) {
+                return null;
+            }
+        }
+        int year = digits(text, yearAt, 4);
+        int month = digits(text, monthAt, 2);
+        int day = digits(text, dayAt, 2);
+        // before 1600 SimpleDateFormat switches to the Julian calendar
+        if (year < 1600 || month < 1 || month > 12 || day < 1
+                || day > LocalDate.of(year, month, 1).lengthOfMonth()) {
+            return null;
+        }
+        return LocalDate.of(year, month, day);
+    }
+
+    private static int digits(String text, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            value = value * 10 + text.charAt(i) - '0';
+        }
+        return value;
+    }
+
+    private static int countLiterals(String pattern) {
+        int count = 0;
+        for (int i = 0; i < pattern.length(); i++) {
+            if (!Character.isLetter(pattern.charAt(i))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static DateTimeFormatter isoFormatter(Class<?> type) {
+        return type == LocalDate.class ? DateTimeFormatter.ISO_LOCAL_DATE
+                : type == LocalDateTime.class ? DateTimeFormatter.ISO_LOCAL_DATE_TIME
+                : DateTimeFormatter.ISO_INSTANT;
+    }
+}
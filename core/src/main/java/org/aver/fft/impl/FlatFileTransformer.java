@@ -0,0 +1,1359 @@
+/*
+ *  Copyright 2005 AverConsulting Inc.
+ * 
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.aver.fft.impl;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.Method;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.aver.fft.BatchRecordListener;
+import org.aver.fft.BeanFactory;
+import org.aver.fft.DefaultBeanCreator;
+import org.aver.fft.FileRecordListener;
+import org.aver.fft.FileResult;
+import org.aver.fft.ParseOptions;
+import org.aver.fft.RecordListener;
+import org.aver.fft.Transformer;
+import org.aver.fft.TransformerException;
+import org.aver.fft.TransformerLimitException;
+import org.aver.fft.TransformerParseException;
+import org.aver.fft.annotations.Transform;
+import org.aver.fft.spi.ColumnDefinition;
+import org.aver.fft.spi.RecordBinder;
+import org.aver.fft.spi.TransformDefinition;
+
+/**
+ * Implements the {@link Transformer} interface.
+ * <p>
+ * A transformer is immutable once constructed: the record format, setters and
+ * bean factory are all resolved up front. A single instance can be shared and
+ * used to load records from any number of threads without locking.
+ * 
+ * @author Mathew Thomas
+ */
+public final class FlatFileTransformer implements Transformer {
+    /** Log messages into this. */
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(FlatFileTransformer.class);
+
+    /** Default column separator (for delimited columns) */
+    private final static String DEFAULT_COLUMN_SEPARATOR_CHARACTER = " ";
+
+    /** CHARACTER (the default) or fixed length columns. */
+    private final ColumnSeparator columnSeparatorType;
+
+    /** Column separator (for delimited columns) */
+    private final String columnSeparator;
+
+    /** Column separator compiled for the tokenizer. */
+    private final Separator separator;
+
+    /**
+     * Column number that is the identifier for the record. An identifier is
+     * used to uniquely map a record to a certain record type. This is needed
+     * when several record types are read from one file.
+     */
+    private final int idColumnIndex;
+
+    /** Value of the identifier column that marks the lines of the class. */
+    private final String recordIdentifier;
+
+    /** Finds the type of each line when several types are read, else null. */
+    private final RecordDispatcher dispatcher;
+
+    /**
+     * An external reference to a factory that is responsible for creating the
+     * beans into which the data is read into. By default
+     * {@link DefaultBeanCreator} is used which simply creates a new instance
+     * using the default constructor.
+     */
+    private final BeanFactory beanCreator;
+
+    /** Bean class name to {@link Record} instance. */
+    private final Map<String, Record> recordMap;
+
+    private final boolean skipFirstLine;
+
+    private final Class<?> clazz;
+
+    /** Binder generated at build time for the bean class, if any. */
+    private final RecordBinder recordBinder;
+
+    /** Security: Longest line accepted, bounds the memory used per line. */
+    private final int maxLineLength;
+
+    /** Security: Most lines read from a file. */
+    private final long maxLines;
+
+    /** Security: Largest file accepted, in bytes. */
+    private final long maxFileSize;
+
+    /** Charset of the files. */
+    private final Charset charset;
+
+    /**
+     * Initialize the transformer.
+     * 
+     * @param clazz the target class for transformation
+     * @throws TransformerException if the class is invalid
+     */
+    public FlatFileTransformer(final Class<?> clazz) {
+        this(clazz, null);
+    }
+
+    /**
+     * Initialize the transformer with a binder generated at build time for
+     * the class. The record settings and column layout are then taken from
+     * the binder instead of being read from the annotations.
+     * 
+     * @param clazz the target class for transformation
+     * @param recordBinder generated binder for the class, may be null
+     * @throws TransformerException if the class is invalid
+     */
+    public FlatFileTransformer(final Class<?> clazz, final RecordBinder recordBinder) {
+        // Security: Validate input class
+        if (clazz == null) {
+            throw new TransformerException("Target class cannot be null");
+        }
+        
+        if (recordBinder != null && recordBinder.getBeanClass() != clazz) {
+            throw new TransformerException("Record binder " + recordBinder.getClass().getName()
+                    + " does not load " + clazz.getName());
+        }
+        
+        this.clazz = clazz;
+        this.recordBinder = recordBinder;
+
+        TransformDefinition settings = recordBinder != null
+                ? recordBinder.getTransform() : null;
+        if (settings == null) {
+            // Security: Ensure class has proper annotations
+            if (!clazz.isAnnotationPresent(Transform.class)) {
+                throw new TransformerException("Class must be annotated with @Transform: " + clazz.getName());
+            }
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Reading record metadata from annotations in class "
+                        + clazz.getName());
+            }
+            settings = transformDefinition(clazz.getAnnotation(Transform.class));
+        }
+        this.beanCreator = createBeanCreator(settings.beanCreator());
+        this.columnSeparator = columnSeparator(settings.columnSeparator());
+        this.separator = new Separator(columnSeparator,
+                settings.collapseSeparators());
+        this.charset = charset(settings.charset());
+        this.columnSeparatorType = settings.columnSeparatorType();
+        this.skipFirstLine = settings.skipFirstLine();
+        this.maxLineLength = settings.maxLineLength() > 0
+                ? settings.maxLineLength() : Integer.MAX_VALUE;
+        this.maxLines = settings.maxLines() > 0
+                ? settings.maxLines() : Long.MAX_VALUE;
+        this.maxFileSize = settings.maxFileSize() > 0
+                ? settings.maxFileSize() : Long.MAX_VALUE;
+        this.recordIdentifier = settings.recordIdentifier();
+        this.idColumnIndex = settings.recordIdentifierColumn();
+        this.dispatcher = null;
+
+        // parse column mappings for this record
+        Record rec = recordBinder != null
+                ? parseRecordMappingDetails(recordBinder)
+                : parseRecordMappingDetails();
+        this.recordMap = Map.of(rec.getName(), rec);
+    }
+
+    /**
+     * Initialize a transformer that reads several record types from one
+     * file. The type of each line is found from its record identifier (see
+     * {@link Transform#recordIdentifier()}). The file level settings (column
+     * separator, header line, charset) are those of the first type, and all
+     * types must agree on the separator and the identifier column. The limits
+     * are the strictest of all the types.
+     * 
+     * @param types transformers of the record types, one per class
+     * @throws TransformerException if the types cannot share a file
+     */
+    public FlatFileTransformer(final List<FlatFileTransformer> types) {
+        if (types == null || types.size() < 2) {
+            throw new TransformerException("At least two record types must be specified");
+        }
+        for (FlatFileTransformer type : types) {
+            if (type == null) {
+                throw new TransformerException("At least two record types must be specified");
+            }
+        }
+
+        FlatFileTransformer first = types.get(0);
+        if (first.idColumnIndex < 1) {
+            throw new TransformerException("Record identifier column must be at least 1: "
+                    + first.idColumnIndex);
+        }
+        Map<String, Record> records = new HashMap<>();
+        Map<String, FlatFileTransformer> identifiers = new HashMap<>();
+        for (FlatFileTransformer type : types) {
+            String identifier = type.recordIdentifier;
+            if (StringUtils.isEmpty(identifier)) {
+                throw new TransformerException("Record identifier must be specified for "
+                        + type.clazz.getName());
+            }
+            if (type.dispatcher != null
+                    || type.columnSeparatorType != first.columnSeparatorType
+                    || !type.columnSeparator.equals(first.columnSeparator)
+                    || type.separator.collapse() != first.separator.collapse()
+                    || type.idColumnIndex != first.idColumnIndex) {
+                throw new TransformerException(type.clazz.getName()
+                        + " does not have the column separator and record identifier column of "
+                        + first.clazz.getName());
+            }
+            if (identifiers.putIfAbsent(identifier, type) != null) {
+                throw new TransformerException("Record identifier " + identifier + " of "
+                        + type.clazz.getName() + " is already used by "
+                        + identifiers.get(identifier).clazz.getName());
+            }
+            records.putAll(type.recordMap);
+        }
+
+        this.clazz = first.clazz;
+        this.recordBinder = first.recordBinder;
+        this.beanCreator = first.beanCreator;
+        this.columnSeparator = first.columnSeparator;
+        this.separator = first.separator;
+        this.charset = first.charset;
+        this.columnSeparatorType = first.columnSeparatorType;
+        this.skipFirstLine = first.skipFirstLine;
+        // a limit of one type holds for the whole file
+        this.maxLineLength = types.stream().mapToInt(t -> t.maxLineLength).min().getAsInt();
+        this.maxLines = types.stream().mapToLong(t -> t.maxLines).min().getAsLong();
+        this.maxFileSize = types.stream().mapToLong(t -> t.maxFileSize).min().getAsLong();
+        this.recordIdentifier = first.recordIdentifier;
+        this.idColumnIndex = first.idColumnIndex;
+        this.recordMap = Map.copyOf(records);
+        this.dispatcher = new RecordDispatcher(identifiers, columnSeparatorType,
+                separator, idColumnIndex);
+    }
+
+    /**
+     * Parses an InputStream and sends records to the listener.
+     * 
+     * @param stream the input stream to parse
+     * @param listener the listener to receive parsed records
+     * @throws TransformerException if input validation fails or parsing errors occur
+     */
+    @Override
+    public void parseFlatFile(final InputStream stream,
+            final RecordListener listener) {
+        // Security: Validate inputs
+        if (stream == null) {
+            throw new TransformerException("InputStream cannot be null");
+        }
+        
+        if (listener == null) {
+            throw new TransformerException("RecordListener cannot be null");
+        }
+
+        parseStream(stream, RecordSink.of(listener), ParseOptions.defaults());
+    }
+
+    /**
+     * Parses an InputStream and sends records to the listener, as set in the
+     * options.
+     * 
+     * @param stream the input stream to parse
+     * @param listener the listener to receive parsed records
+     * @param options whether to parse in a pipeline
+     * @throws TransformerException if input validation fails or parsing errors occur
+     */
+    @Override
+    public void parseFlatFile(final InputStream stream,
+            final RecordListener listener, final ParseOptions options) {
+        // Security: Validate inputs
+        if (stream == null) {
+            throw new TransformerException("InputStream cannot be null");
+        }
+        
+        if (listener == null) {
+            throw new TransformerException("RecordListener cannot be null");
+        }
+        
+        if (options == null) {
+            throw new TransformerException("ParseOptions cannot be null");
+        }
+
+        parseStream(stream, RecordSink.of(listener), options);
+    }
+
+    /**
+     * Parses an InputStream and sends batches of records to the listener.
+     * 
+     * @param stream the input stream to parse
+     * @param listener the listener to receive the batches
+     * @param options the batch size
+     * @throws TransformerException if input validation fails or parsing errors occur
+     */
+    @Override
+    public void parseFlatFile(final InputStream stream,
+            final BatchRecordListener listener, final ParseOptions options) {
+        // Security: Validate inputs
+        if (stream == null) {
+            throw new TransformerException("InputStream cannot be null");
+        }
+        
+        if (listener == null) {
+            throw new TransformerException("BatchRecordListener cannot be null");
+        }
+        
+        if (options == null) {
+            throw new TransformerException("ParseOptions cannot be null");
+        }
+        if (options.reuseBeans()) {
+            throw new TransformerException("Beans cannot be reused when records are delivered in batches");
+        }
+
+        parseStream(stream, RecordSink.of(listener, options.batchSize()), options);
+    }
+
+    private void parseStream(final InputStream stream, final RecordSink sink,
+            final ParseOptions options) {
+        try {
+            parse(stream, sink, options);
+        } catch (TransformerLimitException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new TransformerException("Error parsing input stream: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Parses a file and sends records to the listener.
+     * 
+     * @param file the file to parse
+     * @param listener the listener to receive parsed records
+     * @throws TransformerException if input validation fails or file access errors occur
+     */
+    @Override
+    public void parseFlatFile(final File file, final RecordListener listener) {
+        parseFlatFile(file, listener, ParseOptions.defaults());
+    }
+
+    /**
+     * Parses a file and sends records to the listener, reading the file as
+     * set in the options.
+     * 
+     * @param file the file to parse
+     * @param listener the listener to receive parsed records
+     * @param options how to read the file
+     * @throws TransformerException if input validation fails or file access errors occur
+     */
+    @Override
+    public void parseFlatFile(final File file, final RecordListener listener,
+            final ParseOptions options) {
+        if (listener == null) {
+            throw new TransformerException("RecordListener cannot be null");
+        }
+
+        parseFile(file, RecordSink.of(listener), options);
+    }
+
+    /**
+     * Parses a file and sends batches of records to the listener, reading the
+     * file as set in the options.
+     * 
+     * @param file the file to parse
+     * @param listener the listener to receive the batches
+     * @param options how to read the file and the batch size
+     * @throws TransformerException if input validation fails or file access errors occur
+     */
+    @Override
+    public void parseFlatFile(final File file, final BatchRecordListener listener,
+            final ParseOptions options) {
+        if (listener == null) {
+            throw new TransformerException("BatchRecordListener cannot be null");
+        }
+        
+        if (options == null) {
+            throw new TransformerException("ParseOptions cannot be null");
+        }
+        if (options.reuseBeans()) {
+            throw new TransformerException("Beans cannot be reused when records are delivered in batches");
+        }
+
+        parseFile(file, RecordSink.of(listener, options.batchSize()), options);
+    }
+
+    void parseFile(final File file, final RecordSink sink,
+            final ParseOptions options) {
+        if (options == null) {
+            throw new TransformerException("ParseOptions cannot be null");
+        }
+        validateFile(file);
+        if (options.memoryMapped() || options.parallelism() > 1 && !options.pipelined()) {
+            requireByteLines();
+        }
+        
+        try {
+            if (options.pipelined()) {
+                if (options.memoryMapped()) {
+                    try (MappedLineReader reader = new MappedLineReader(
+                            file.toPath(), charset, maxLineLength)) {
+                        parse(reader::readLine, sink, options);
+                    }
+                } else {
+                    parse(new FileInputStream(file), sink, options);
+                }
+            } else if (options.parallelism() > 1) {
+                if (options.reuseBeans()) {
+                    throw new TransformerException("Beans can only be reused by a pipelined parse when the parallelism is above 1");
+                }
+                new ParallelParser(this, getRecord(clazz.getName()).orElseThrow(),
+                        charset, options)
+                        .parse(file.toPath(), sink);
+            } else if (options.memoryMapped()) {
+                try (MappedLineReader reader = new MappedLineReader(
+                        file.toPath(), charset, maxLineLength)) {
+                    parse(reader::readLine, sink, options);
+                }
+            } else {
+                parse(new FileInputStream(file), sink, options);
+            }
+        } catch (TransformerLimitException e) {
+            throw e;
+        } catch (FileNotFoundException e) {
+            throw new TransformerException("File not found: " + file.getAbsolutePath(), e);
+        } catch (SecurityException e) {
+            throw new TransformerException("Security error accessing file: " + file.getAbsolutePath(), e);
+        } catch (Exception e) {
+            throw new TransformerException("Error parsing file: " + file.getAbsolutePath() + " - " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Parses the files concurrently, each on a virtual thread, with at most
+     * the given number of files open at a time.
+     * 
+     * @param files the files to parse
+     * @param listener the listener to receive the records of all the files
+     * @param maxOpenFiles most files parsed at the same time
+     * @return the result of each file, in the order of the files
+     * @throws TransformerException if input validation fails
+     */
+    @Override
+    public List<FileResult> parseFlatFiles(final Collection<Path> files,
+            final FileRecordListener listener, final int maxOpenFiles) {
+        return parseFlatFiles(files, listener, maxOpenFiles, ParseOptions.defaults());
+    }
+
+    /**
+     * Parses the files concurrently, as
+     * {@link #parseFlatFiles(Collection, FileRecordListener, int)}, reading
+     * each file as set in the options.
+     * 
+     * @param files the files to parse
+     * @param listener the listener to receive the records of all the files
+     * @param maxOpenFiles most files parsed at the same time
+     * @param options how to read each file
+     * @return the result of each file, in the order of the files
+     * @throws TransformerException if input validation fails
+     */
+    @Override
+    public List<FileResult> parseFlatFiles(final Collection<Path> files,
+            final FileRecordListener listener, final int maxOpenFiles,
+            final ParseOptions options) {
+        if (files == null) {
+            throw new TransformerException("Files cannot be null");
+        }
+        // contains(null) throws on immutable collections such as List.of
+        for (Path file : files) {
+            if (file == null) {
+                throw new TransformerException("Files cannot be null");
+            }
+        }
+        
+        if (listener == null) {
+            throw new TransformerException("FileRecordListener cannot be null");
+        }
+        
+        if (maxOpenFiles < 1) {
+            throw new TransformerException("Max open files must be at least 1: " + maxOpenFiles);
+        }
+        
+        if (options == null) {
+            throw new TransformerException("ParseOptions cannot be null");
+        }
+
+        return new MultiFileParser(this, listener, maxOpenFiles, options).parse(files);
+    }
+
+    /**
+     * Parses the files of the directory whose names match the glob pattern,
+     * in name order, as {@link #parseFlatFiles(Collection, FileRecordListener, int)}.
+     * 
+     * @param directory the directory to list
+     * @param glob pattern the file names must match, such as <code>*.txt</code>
+     * @param listener the listener to receive the records of all the files
+     * @param maxOpenFiles most files parsed at the same time
+     * @return the result of each file, in name order
+     * @throws TransformerException if input validation fails or the directory cannot be listed
+     */
+    @Override
+    public List<FileResult> parseFlatFiles(final Path directory, final String glob,
+            final FileRecordListener listener, final int maxOpenFiles) {
+        return parseFlatFiles(directory, glob, listener, maxOpenFiles, ParseOptions.defaults());
+    }
+
+    /**
+     * Parses the files of the directory whose names match the glob pattern,
+     * in name order, reading each file as set in the options.
+     * 
+     * @param directory the directory to list
+     * @param glob pattern the file names must match, such as <code>*.txt</code>
+     * @param listener the listener to receive the records of all the files
+     * @param maxOpenFiles most files parsed at the same time
+     * @param options how to read each file
+     * @return the result of each file, in name order
+     * @throws TransformerException if input validation fails or the directory cannot be listed
+     */
+    @Override
+    public List<FileResult> parseFlatFiles(final Path directory, final String glob,
+            final FileRecordListener listener, final int maxOpenFiles,
+            final ParseOptions options) {
+        if (directory == null || !Files.isDirectory(directory)) {
+            throw new TransformerException("Not a directory: " + directory);
+        }
+        
+        if (StringUtils.isEmpty(glob)) {
+            throw new TransformerException("Glob pattern must be specified");
+        }
+
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory, glob)) {
+            for (Path entry : entries) {
+                if (Files.isRegularFile(entry)) {
+                    files.add(entry);
+                }
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            throw new TransformerException("Error listing directory: " + directory
+                    + " - " + e.getMessage(), e);
+        }
+        files.sort(null);
+        return parseFlatFiles(files, listener, maxOpenFiles, options);
+    }
+
+    /**
+     * Security: Checks that the file can be read and is within the size limit.
+     * 
+     * @param file the file to check
+     * @throws TransformerException if the file cannot be read
+     */
+    private void validateFile(final File file) {
+        // Security: Comprehensive file validation
+        if (file == null) {
+            throw new TransformerException("File cannot be null");
+        }
+        
+        if (!file.exists()) {
+            throw new TransformerException("File does not exist: " + file.getAbsolutePath());
+        }
+        
+        if (!file.isFile()) {
+            throw new TransformerException("Path is not a regular file: " + file.getAbsolutePath());
+        }
+        
+        if (!file.canRead()) {
+            throw new TransformerException("File is not readable: " + file.getAbsolutePath());
+        }
+        
+        if (file.length() > maxFileSize) {
+            throw new TransformerLimitException("File too large (max " + maxFileSize
+                    + " bytes): " + file.length() + " bytes");
+        }
+    }
+
+    /**
+     * Returns a lazy stream of the records in the file. The stream splits by
+     * byte ranges at line boundaries, so a parallel stream parses different
+     * parts of the file on different threads. A line that cannot be loaded
+     * fails the stream with a {@link TransformerParseException}. Close the
+     * stream to close the file.
+     * 
+     * @param file the file to read
+     * @return stream of the beans loaded from the file
+     * @throws TransformerException if input validation fails or the file cannot be opened
+     */
+    @Override
+    public <T> Stream<T> stream(final Path file) {
+        if (file == null) {
+            throw new TransformerException("File cannot be null");
+        }
+        validateFile(file.toFile());
+        requireByteLines();
+
+        Record rec = getRecord(clazz.getName()).orElseThrow();
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            long size = channel.size();
+            long start = skipFirstLine ? ParallelParser.nextLineStart(channel, 0, size) : 0;
+            RecordSpliterator<T> records = new RecordSpliterator<>(this, rec, channel,
+                    charset, start, size, skipFirstLine ? 1 : 0);
+            return StreamSupport.stream(records, false).onClose(closer(channel));
+        } catch (IOException e) {
+            closer(channel).run();
+            throw new TransformerException("Error opening file: " + file, e);
+        }
+    }
+
+    /**
+     * Returns a lazy stream of the records read from the input stream. A line
+     * that cannot be loaded fails the stream with a
+     * {@link TransformerParseException}. Closing the stream closes the input
+     * stream.
+     * 
+     * @param stream the input stream to read
+     * @return stream of the beans loaded from the input
+     * @throws TransformerException if input validation fails
+     */
+    @Override
+    public <T> Stream<T> stream(final InputStream stream) {
+        if (stream == null) {
+            throw new TransformerException("InputStream cannot be null");
+        }
+
+        LineSource lines = records(lines(stream));
+        TokenList tokens = new TokenList(this, getRecord(clazz.getName()).orElseThrow());
+        Spliterator<T> records = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            private long lineCount;
+
+            @Override
+            public boolean tryAdvance(final Consumer<? super T> action) {
+                try {
+                    CharSequence line;
+                    while ((line = lines.readLine()) != null) {
+                        long lineNumber = lineCount + 1;
+                        lineCount += lines.linesRead();
+                        checkLimits(line.length(), lineCount);
+                        if (skipFirstLine && lineNumber == 1) {
+                            continue;
+                        }
+                        action.accept(streamRecord(line, tokens, () -> lineNumber));
+                        return true;
+                    }
+                    return false;
+                } catch (IOException e) {
+                    throw new TransformerException(e);
+                }
+            }
+        };
+        return StreamSupport.stream(records, false).onClose(closer(lines));
+    }
+
+    /**
+     * Returns a publisher of the records in the file. Each subscriber gets its
+     * own pass over the file, parsed on the executor only as far as the
+     * subscriber has requested.
+     * 
+     * @param file the file to read
+     * @param executor runs the parsing and the subscriber signals
+     * @return publisher of the beans loaded from the file
+     * @throws TransformerException if input validation fails
+     */
+    @Override
+    public <T> Flow.Publisher<T> publisher(final Path file, final Executor executor) {
+        if (file == null) {
+            throw new TransformerException("File cannot be null");
+        }
+        if (executor == null) {
+            throw new TransformerException("Executor cannot be null");
+        }
+        validateFile(file.toFile());
+        return new RecordPublisher<T>(() -> stream(file), executor);
+    }
+
+    private static Runnable closer(final Closeable closeable) {
+        return () -> {
+            if (closeable != null) {
+                try {
+                    closeable.close();
+                } catch (IOException e) {
+                    LOGGER.error("Exception while closing the file reader.", e);
+                }
+            }
+        };
+    }
+
+    /**
+     * Loads a line read for a stream.
+     * 
+     * @param lineNumber number of the line, only asked for if it cannot be loaded
+     * @throws TransformerParseException if the line cannot be loaded
+     */
+    @SuppressWarnings("unchecked")
+    <T> T streamRecord(final CharSequence line, final TokenList tokens,
+            final LongSupplier lineNumber) {
+        try {
+            return (T) loadRecord(line, tokens);
+        } catch (TransformerException e) {
+            throw new TransformerParseException("Could not load line "
+                    + lineNumber.getAsLong() + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Loads a record from a line of text into a Java object.
+     * 
+     * @param line the input line to parse
+     * @return the parsed object
+     * @throws TransformerException if parsing fails
+     * @throws TransformerParseException if the line format is invalid
+     */
+    @Override
+    public Object loadRecord(final String line) {
+        // Security: Comprehensive input validation
+        if (line == null) {
+            throw new TransformerException("Input line cannot be null");
+        }
+        
+        // Security: Prevent DoS attacks with extremely long lines
+        if (line.length() > maxLineLength) {
+            throw new TransformerLimitException("Input line too long (max " + maxLineLength
+                    + " characters): " + line.length());
+        }
+        
+        // Security: Validate class state
+        if (clazz == null) {
+            throw new TransformerException("Target class is not initialized");
+        }
+        
+        Optional<Record> optionalRec = getRecord(clazz.getName());
+        
+        if (optionalRec.isEmpty()) {
+            throw new TransformerException("No record format found for class: " + clazz.getName());
+        }
+        
+        Record rec = optionalRec.get();
+        return loadRecord(line, new TokenList(this, rec));
+    }
+
+    /**
+     * Loads the record into a new bean, tokenizing the line with the given
+     * (reusable) token list.
+     * 
+     * @param line the input line to parse
+     * @param tokens token list to tokenize the line into
+     * @return the parsed object
+     */
+    Object loadRecord(final CharSequence line, final TokenList tokens) {
+        return loadRecord(line, tokens, null);
+    }
+
+    /**
+     * Loads the record into the given bean, or into a new one. Every column
+     * of the record is set, so nothing of the previous record is left in
+     * the loaded columns of a reused bean.
+     * 
+     * @param line the input line to parse
+     * @param tokens token list to tokenize the line into
+     * @param reuse bean loaded with a previous record of this transformer,
+     *            or <code>null</code> to create one
+     * @return the parsed object
+     */
+    Object loadRecord(final CharSequence line, final TokenList tokens,
+            final Object reuse) {
+        if (dispatcher != null) {
+            FlatFileTransformer type = dispatcher.dispatch(line);
+            // the previous bean may be of another record type
+            return type.loadRecord(line, tokens.use(type.recordMap.get(type.clazz.getName())),
+                    reuse != null && reuse.getClass() == type.clazz ? reuse : null);
+        }
+
+        if (recordBinder != null) {
+            Object dest = reuse;
+            if (dest == null && beanCreator instanceof DefaultBeanCreator) {
+                dest = recordBinder.newBean();
+            }
+            if (dest == null) {
+                dest = beanCreator.createBean(clazz);
+            }
+            recordBinder.bind(dest, tokens.tokenize(line));
+            return dest;
+        }
+
+        Object dest = reuse != null ? reuse : beanCreator.createBean(clazz);
+
+        tokens.tokenize(line);
+        for (ColumnBinder binder : tokens.getRecord().binders()) {
+            binder.bind(dest, tokens);
+        }
+
+        return dest;
+    }
+
+    /**
+     * Reads the annotated methods of the bean class into a {@link Record}
+     * instance. The Record instance will contain metadata about the record
+     * format.
+     * 
+     * @return the record format
+     */
+    private Record parseRecordMappingDetails() {
+        Record rec = new Record(clazz.getName());
+        StringDictionary dictionary = null;
+        for (Method m : clazz.getMethods()) {
+            if (m.isAnnotationPresent(org.aver.fft.annotations.Column.class)) {
+                String colname = m.getName();
+                if (m.getName().startsWith("get")
+                        || m.getName().startsWith("set")) {
+                    colname = colname.substring(3);
+                }
+                colname = Character.toLowerCase(colname.charAt(0))
+                        + colname.substring(1);
+                org.aver.fft.annotations.Column annot = m
+                        .getAnnotation(org.aver.fft.annotations.Column.class);
+                // String name, String type, boolean required, int
+                // index, String format, boolean skip
+                Column col = new Column(colname, m.getReturnType()
+                        .getName(), annot.required(), annot.position(),
+                        annot.format(), annot.skip())
+                        .withFixedPositions(annot.start(), annot.end())
+                        .withDedupe(annot.dedupe());
+                rec.addColumn(col);
+                // the property type is checked when its setter is resolved
+                dictionary = shareStrings(rec, col, null, dictionary);
+            }
+        }
+        rec.setBinders(compileBinders(rec));
+        return rec;
+    }
+
+    /**
+     * Loads the record format from a binder generated at build time, without
+     * looking at the annotated methods.
+     * 
+     * @param binder
+     * @return the record format
+     */
+    private Record parseRecordMappingDetails(final RecordBinder binder) {
+        Record rec = new Record(clazz.getName());
+        StringDictionary dictionary = null;
+        for (ColumnDefinition def : binder.getColumns()) {
+            Column col = new Column(def.name(), def.type().getName(),
+                    def.required(), def.position(), def.format(), def.skip())
+                    .withFixedPositions(def.start(), def.end())
+                    .withDedupe(def.dedupe());
+            rec.addColumn(col);
+            dictionary = shareStrings(rec, col, def.type(), dictionary);
+            if (!col.skip()) {
+                rec.setConverter(col.index() - 1,
+                        ValueConverter.forType(col, def.type()));
+            }
+        }
+        return rec;
+    }
+
+    /**
+     * Registers the dictionary of a column whose strings are shared. All the
+     * columns of the record share one dictionary, created for the first.
+     * 
+     * @param type
+     *            property type, <code>null</code> if not known yet
+     * @return the dictionary of the record, <code>null</code> while no column
+     *         shares its strings
+     * @throws TransformerException
+     *             if the column is not a string column
+     */
+    private StringDictionary shareStrings(final Record rec, final Column col,
+            final Class<?> type, final StringDictionary dictionary) {
+        if (!col.dedupe() || col.skip()) {
+            return dictionary;
+        }
+        if (type != null && !ColumnBinder.isString(type)) {
+            throw ColumnBinder.notString(col);
+        }
+        StringDictionary shared = dictionary == null ? new StringDictionary() : dictionary;
+        rec.setDictionary(col.index() - 1, shared);
+        return shared;
+    }
+
+    /**
+     * Resolves the setter and type converter of every column that is loaded
+     * into the bean, so that loading a record needs no further lookups.
+     * Columns whose property has no public setter are ignored.
+     * 
+     * @param rec
+     *            record format
+     * @return binders in column order
+     */
+    private ColumnBinder[] compileBinders(final Record rec) {
+        Map<String, PropertyDescriptor> properties = new HashMap<>();
+        try {
+            for (PropertyDescriptor pd : Introspector.getBeanInfo(clazz)
+                    .getPropertyDescriptors()) {
+                properties.put(pd.getName(), pd);
+            }
+        } catch (IntrospectionException e) {
+            throw new TransformerException(e);
+        }
+
+        List<ColumnBinder> binders = new ArrayList<>();
+        for (int i : rec.indexes()) {
+            Column col = rec.getColumnAt(i);
+            if (col.skip()) {
+                continue;
+            }
+
+            PropertyDescriptor pd = properties.get(col.name());
+            ColumnBinder binder = pd == null ? null : ColumnBinder.compile(col, pd,
+                    rec.getDictionaryAt(i));
+            if (binder == null) {
+                LOGGER.debug("No setter for column {} in {}",
+                        col.name(), clazz.getName());
+                continue;
+            }
+            binders.add(binder);
+        }
+        return binders.toArray(new ColumnBinder[0]);
+    }
+
+    /**
+     * Parse the file contents and register the listener to which we send
+     * individual records read from the file. File contents will be read until
+     * either the complete file is read or if the {@link RecordListener} returns
+     * a <code>false</code> requesting the framework to stop reading the rest of
+     * the file.
+     * 
+     * @param stream
+     *            file contents, closed when done
+     * @param listener
+     *            listener waiting for records
+     * @param options
+     *            whether to parse in a pipeline
+     */
+    private void parse(final InputStream stream, final RecordSink sink,
+            final ParseOptions options) {
+        try (LineSource lines = lines(stream)) {
+            parse(lines, sink, options);
+        } catch (IOException e) {
+            throw new TransformerException(e);
+        }
+    }
+
+    /**
+     * Opens the lines of a stream in the file charset, split on the bytes
+     * when the charset allows it.
+     */
+    private LineSource lines(final InputStream stream) {
+        return ByteLineReader.isAsciiCompatible(charset)
+                ? new ByteLineReader(stream, charset, maxLineLength)
+                : new BoundedLineReader(new InputStreamReader(stream, charset), maxLineLength);
+    }
+
+    /**
+     * Returns the records of the lines: separated records are joined where a
+     * quoted column holds a line break. Line numbers still count the lines of
+     * the input, see {@link LineSource#linesRead()}; a joined record has the
+     * number of its first line.
+     */
+    LineSource records(final LineSource lines) {
+        return records(lines, null);
+    }
+
+    /**
+     * Returns the records of one byte range of a file. A quote still open at
+     * the end of the range is followed into the lines after it, see
+     * {@link QuotedLineSource}.
+     * 
+     * @param rest
+     *            opens the lines after the range
+     */
+    LineSource records(final LineSource lines, final QuotedLineSource.Continuation rest) {
+        return columnSeparatorType == ColumnSeparator.CHARACTER
+                ? new QuotedLineSource(lines, separator, maxLineLength, rest)
+                : lines;
+    }
+
+    /**
+     * Source of the lines of a file. A line returned may be a view that is
+     * only valid until the next line is read.
+     */
+    @FunctionalInterface
+    interface LineSource extends Closeable {
+        CharSequence readLine() throws IOException;
+
+        /**
+         * @return lines of the input the last line returned was read from,
+         *         more than one for a record joined over line breaks
+         */
+        default int linesRead() {
+            return 1;
+        }
+
+        /**
+         * Closes the input, if this source owns it.
+         */
+        @Override
+        default void close() throws IOException {
+        }
+    }
+
+    /**
+     * Parses the lines on the calling thread, or in a pipeline if the options
+     * ask for one.
+     */
+    private void parse(final LineSource lines, final RecordSink sink,
+            final ParseOptions options) {
+        if (options.pipelined()) {
+            new PipelinedParser(this, getRecord(clazz.getName()).orElseThrow(), options)
+                    .parse(records(lines), sink);
+        } else {
+            parse(records(lines), sink, options.reuseBeans());
+        }
+    }
+
+    /**
+     * Reads lines from the source until it is exhausted or the sink asks to
+     * stop, delivering each record to the sink.
+     * 
+     * @param lines
+     *            file contents
+     * @param sink
+     *            receives the records
+     * @param reuseBeans
+     *            load every record into the bean of the previous one
+     */
+    private void parse(final LineSource lines, final RecordSink sink,
+            final boolean reuseBeans) {
+        Record rec = getRecord(clazz.getName())
+                .orElseThrow(() -> new TransformerException("No record format found for class: " + clazz.getName()));
+        TokenList tokens = new TokenList(this, rec);
+        Object bean = null;
+
+        try {
+            CharSequence line = null;
+            long lineCount = 0;
+            
+            while ((line = lines.readLine()) != null) {
+                long lineNumber = lineCount + 1;
+                lineCount += lines.linesRead();
+                checkLimits(line.length(), lineCount);
+
+                if (skipFirstLine && lineNumber == 1) {
+                    continue;
+                }
+
+                Object o;
+                try {
+                    o = loadRecord(line, tokens, bean);
+                    if (reuseBeans) {
+                        bean = o;
+                    }
+                } catch (TransformerException e) {
+                    LOGGER.debug("Failed to parse line {}: {}", lineNumber, e.getMessage());
+                    o = null;
+                } catch (OutOfMemoryError e) {
+                    // Security: Handle memory exhaustion gracefully
+                    throw new TransformerException("Out of memory while processing line " + lineNumber + 
+                            ". Consider processing smaller files or increasing heap size.", e);
+                }
+
+                // exceptions from the listener are not unresolved lines
+                boolean continueReading = o != null
+                        ? sink.record(o, lineNumber)
+                        : sink.unresolved(line.toString(), lineNumber);
+
+                // check if we need to stop reading
+                if (!continueReading) {
+                    LOGGER.info("Aborted reading of file at line# " + lineNumber);
+                    return;
+                }
+            }
+            sink.finish();
+        } catch (TransformerLimitException e) {
+            // deliver what was read before the limit was hit
+            sink.flush();
+            throw e;
+        } catch (IOException e) {
+            throw new TransformerException(e);
+        }
+    }
+
+    /**
+     * Security: Checks a line read from a file against the configured limits.
+     * 
+     * @param lineLength length of the line
+     * @param lineNumber number of the line in the file, starting at 1
+     * @throws TransformerLimitException if a limit is exceeded
+     */
+    void checkLimits(final int lineLength, final long lineNumber) {
+        if (lineNumber > maxLines) {
+            throw new TransformerLimitException("File has more than " + maxLines + " lines");
+        }
+        if (lineLength > maxLineLength) {
+            throw lineTooLong(lineNumber, maxLineLength);
+        }
+    }
+
+    int maxLineLength() {
+        return maxLineLength;
+    }
+
+    Separator separator() {
+        return separator;
+    }
+
+    static TransformerLimitException lineTooLong(final long lineNumber, final int maxLineLength) {
+        return new TransformerLimitException("Line " + lineNumber + " is longer than "
+                + maxLineLength + " characters");
+    }
+
+    // ----------------------------------------------------------------------
+    // Setters/Getters.
+    // ----------------------------------------------------------------------
+    public Optional<Record> getRecord(final String string) {
+        return Optional.ofNullable(recordMap.get(string));
+    }
+
+    /**
+     * @return true if records are loaded by a {@link RecordBinder} generated
+     *         at build time for the bean class
+     */
+    public boolean hasRecordBinder() {
+        return recordBinder != null;
+    }
+
+    public ColumnSeparator getColumnSeparatorType() {
+        return columnSeparatorType;
+    }
+
+    public int getIdColumnIndex() {
+        return idColumnIndex;
+    }
+
+    public BeanFactory getBeanCreator() {
+        return beanCreator;
+    }
+
+    public String getColumnSeparator() {
+        return columnSeparator;
+    }
+
+    public boolean isSkipFirstLine() {
+        return skipFirstLine;
+    }
+
+    public int getRecordIdentifierColumn() {
+        return idColumnIndex;
+    }
+
+    public Charset getCharset() {
+        return charset;
+    }
+
+    /**
+     * Returns the separator to use for the configured value, falling back to
+     * the default for empty values. Whitespace, such as a tab, is a
+     * separator of its own.
+     * 
+     * @param separator
+     */
+    private static String columnSeparator(final String separator) {
+        if (separator == null || separator.isEmpty()) {
+            return DEFAULT_COLUMN_SEPARATOR_CHARACTER;
+        }
+        return separator;
+    }
+
+    /**
+     * Checks that lines can be found in the bytes of a file, as they are when
+     * it is memory mapped or split into byte ranges.
+     * 
+     * @throws TransformerException if the charset does not allow it
+     */
+    private void requireByteLines() {
+        if (!ByteLineReader.isAsciiCompatible(charset)) {
+            throw new TransformerException("Charset " + charset.name()
+                    + " does not encode ASCII as single bytes, the file cannot be memory mapped or split");
+        }
+    }
+
+    /**
+     * Copies the attributes of the class annotation, as a generated binder
+     * holds them.
+     * 
+     * @param annotation
+     */
+    private static TransformDefinition transformDefinition(final Transform annotation) {
+        return new TransformDefinition(annotation.columnSeparatorType(),
+                annotation.columnSeparator(), annotation.collapseSeparators(),
+                annotation.beanCreator(), annotation.skipFirstLine(),
+                annotation.charset(), annotation.maxLineLength(),
+                annotation.maxLines(), annotation.maxFileSize(),
+                annotation.recordIdentifier(), annotation.recordIdentifierColumn());
+    }
+
+    /**
+     * Returns the charset of the given name, or the platform default for an
+     * empty name.
+     * 
+     * @param name
+     * @throws TransformerException if the charset is not supported
+     */
+    private static Charset charset(final String name) {
+        if (StringUtils.isEmpty(name)) {
+            return Charset.defaultCharset();
+        }
+        try {
+            return Charset.forName(name);
+        } catch (IllegalArgumentException e) {
+            throw new TransformerException("Unsupported charset: " + name, e);
+        }
+    }
+
+    /**
+     * Creates the factory that constructs the beans into which record data is
+     * to be loaded.
+     * 
+     * @param beanFactory class name of the factory
+     * @return the factory
+     */
+    private static BeanFactory createBeanCreator(final String beanFactory) {
+        Optional.ofNullable(beanFactory)
+                .filter(bf -> !StringUtils.isEmpty(bf))
+                .orElseThrow(() -> new TransformerException("""
+                        An implementation of the interface %s must be provided."""
+                        .formatted(BeanFactory.class.getName())));
+
+        if (DefaultBeanCreator.class.getName().equals(beanFactory)) {
+            return new DefaultBeanCreator();
+        }
+
+        // Security: Validate bean factory class name to prevent RCE attacks
+        if (isBlacklistedBeanFactory(beanFactory)) {
+            throw new TransformerException("Bean factory class not allowed for security reasons: " + beanFactory);
+        }
+
+        try {
+            final Class<?> beanFactoryClazz = Class.forName(beanFactory);
+            
+            // Security: Ensure class is safe to instantiate
+            if (!isSafeBeanFactory(beanFactoryClazz)) {
+                throw new TransformerException("Bean factory class not allowed for security reasons: " + beanFactory);
+            }
+            
+            if (!BeanFactory.class.isAssignableFrom(beanFactoryClazz)) {
+                throw new TransformerException("""
+                        %s does not implement %s"""
+                        .formatted(beanFactory, BeanFactory.class.getName()));
+            }
+            return (BeanFactory) beanFactoryClazz.getDeclaredConstructor().newInstance();
+        } catch (ClassNotFoundException | InstantiationException | IllegalAccessException | 
+                 NoSuchMethodException | java.lang.reflect.InvocationTargetException e) {
+            throw new TransformerException(e);
+        }
+    }
+    
+    /**
+     * Security: Check if bean factory class name is blacklisted
+     */
+    private static boolean isBlacklistedBeanFactory(String className) {
+        // Block dangerous classes that could be used for RCE
+        String[] blacklistedPrefixes = {
+            "java.lang.Runtime",
+            "java.lang.ProcessBuilder",
+            "java.lang.System",
+            "java.lang.Class",
+            "java.lang.Thread",
+            "java.security.",
+            "java.net.",
+            "java.io.File",
+            "java.io.FileInputStream",
+            "java.io.FileOutputStream",
+            "java.nio.file.",
+            "javax.script.",
+            "sun.",
+            "com.sun.",
+            "jdk.internal.",
+            "org.springframework.context.",
+            "org.apache.commons.beanutils.BeanUtils"
+        };
+        
+        String lowerClassName = className.toLowerCase();
+        for (String prefix : blacklistedPrefixes) {
+            if (lowerClassName.startsWith(prefix.toLowerCase())) {
+                return true;
+            }
+        }
+        
+        return false;
+    }
+    
+    /**
+     * Security: Check if bean factory class is safe to instantiate
+     */
+    private static boolean isSafeBeanFactory(Class<?> clazz) {
+        // Additional runtime checks
+        if (clazz.isPrimitive() || clazz.isArray()) {
+            return false;
+        }
+        
+        // Check if class has dangerous interfaces or superclasses
+        try {
+            if (java.lang.Runtime.class.isAssignableFrom(clazz) ||
+                java.lang.ProcessBuilder.class.isAssignableFrom(clazz) ||
+                java.lang.ClassLoader.class.isAssignableFrom(clazz) ||
+                java.lang.Thread.class.isAssignableFrom(clazz)) {
+                return false;
+            }
+        } catch (Exception e) {
+            // If we can't check safely, assume it's dangerous
+            return false;
+        }
+        
+        return true;
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ *  Copyright 2005 AverConsulting Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.aver.fft.impl;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+
+/**
+ * Reads the lines of a file, or of a byte range of it, through a memory
+ * mapping instead of a <code>Reader</code>. The file is mapped one window at a
+ * time, so files of any size can be read, and line ends are found directly in
+ * the mapped bytes, eight at a time with {@link ByteScanner}.
+ * <p>
+ * Lines that are plain ASCII are returned as a {@link ByteLine} over the
+ * mapping, nothing is copied until a column is asked for as a string. Lines
+ * with other bytes are decoded with the file charset, except in ISO-8859-1
+ * where every byte is a character of its own. Like
+ * {@link java.io.BufferedReader#readLine()}, a line ends at <code>\n</code>,
+ * <code>\r</code> or <code>\r\n</code>.
+ * <p>
+ * A window only grows up to the bytes of the longest allowed line; a line
+ * longer than that fails with a <code>TransformerLimitException</code> before
+ * more of the file is mapped.
+ * 
+ * @author Mathew Thomas
+ */
+final class MappedLineReader implements FlatFileTransformer.LineSource {
+    /** Size of the mapped window; a window grows if a line does not fit. */
+    static final int WINDOW_SIZE = 64 * 1024 * 1024;
+
+    private static final long LF = ByteScanner.pattern((byte) '\n');
+
+    private static final long CR = ByteScanner.pattern((byte) '\r');
+
+    private final FileChannel channel;
+
+    /** Whether the channel was opened by this reader. */
+    private final boolean ownsChannel;
+
+    /** File offset where reading stops. */
+    private final long size;
+
+    private final int windowSize;
+
+    private final int maxLineLength;
+
+    /** Bytes of the longest allowed line in the charset. */
+    private final long maxBytes;
+
+    private final Charset charset;
+
+    private final boolean latin1;
+
+    private final ByteLine line = new ByteLine();
+
+    private MappedByteBuffer window;
+
+    /** File offset of the window. */
+    private long windowStart;
+
+    /** Window offset of the next line. */
+    private int pos;
+
+    /** Lines read so far. */
+    private long lineNumber;
+
+    MappedLineReader(Path file, Charset charset, int maxLineLength)
+            throws IOException {
+        this(file, charset, maxLineLength, WINDOW_SIZE);
+    }
+
+    MappedLineReader(Path file, Charset charset, int maxLineLength,
+            int windowSize) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.ownsChannel = true;
+        this.size = channel.size();
+        this.charset = charset;
+        this.latin1 = charset.equals(StandardCharsets.ISO_8859_1);
+        this.windowSize = windowSize;
+        this.maxLineLength = maxLineLength;
+        this.maxBytes = maxBytes(charset, maxLineLength);
+    }
+
+    /**
+     * Reads the lines between two file offsets of an open channel. The range
+     * must start at the beginning of a line; the channel is left open. Line
+     * numbers in a <code>TransformerLimitException</code> count from the
+     * start of the range.
+     */
+    MappedLineReader(FileChannel channel, long start, long end,
+            Charset charset, int maxLineLength) {
+        this.channel = channel;
+        this.ownsChannel = false;
+        this.size = end;
+        this.charset = charset;
+        this.latin1 = charset.equals(StandardCharsets.ISO_8859_1);
+        this.windowSize = (int) Math.min(WINDOW_SIZE, Math.max(1, end - start));
+        this.windowStart = start;
+        this.maxLineLength = maxLineLength;
+        this.maxBytes = maxBytes(charset, maxLineLength);
+    }
+
+    private static long maxBytes(Charset charset, int maxLineLength) {
+        return (long) maxLineLength
+                * (long) Math.ceil(charset.newEncoder().maxBytesPerChar());
+    }
+
+    /**
+     * Reads the next line. The returned sequence is only valid until the next
+     * call.
+     * 
+     * @return the line without its terminator, or <code>null</code> at the end
+     *         of the file
+     * @throws IOException
+     *             if the file cannot be mapped
+     * @throws org.aver.fft.TransformerLimitException
+     *             if the line is longer than the maximum line length
+     */
+    @Override
+    public CharSequence readLine() throws IOException {
+        if (windowStart + pos >= size) {
+            return null;
+        }
+        if (window == null) {
+            map(windowStart, windowSize);
+        }
+
+        for (;;) {
+            int limit = window.limit();
+            boolean lastWindow = windowStart + limit >= size;
+
+            // find the line end, noting whether any byte is outside ASCII
+            int i = pos;
+            long bits = 0;
+            while (i < limit) {
+                if (i + Long.BYTES <= limit) {
+                    // eight bytes at a time while a whole word is left
+                    long word = ByteScanner.word(window, i);
+                    long ends = ByteScanner.matches(word, LF) | ByteScanner.matches(word, CR);
+                    if (ends == 0) {
+                        bits |= word;
+                        i += Long.BYTES;
+                        continue;
+                    }
+                    bits |= ByteScanner.before(word, ends);
+                    i += Long.numberOfTrailingZeros(ends) >>> 3;
+                    break;
+                }
+                byte b = window.get(i);
+                if (b == '\n' || b == '\r') {
+                    break;
+                }
+                bits |= b;
+                i++;
+            }
+
+            if (i == limit) {
+                if (lastWindow) {
+                    // last line has no terminator
+                    return line(pos, limit, bits, limit);
+                }
+                if (limit - pos > maxBytes) {
+                    throw FlatFileTransformer.lineTooLong(lineNumber + 1, maxLineLength);
+                }
+                extend();
+                continue;
+            }
+
+            int next = i + 1;
+            if (window.get(i) == '\r') {
+                if (next < limit) {
+                    if (window.get(next) == '\n') {
+                        next++;
+                    }
+                } else if (!lastWindow) {
+                    // need the next byte to tell \r from \r\n
+                    extend();
+                    continue;
+                }
+            }
+            return line(pos, i, bits, next);
+        }
+    }
+
+    /**
+     * @return file offset of the next line
+     */
+    long position() {
+        return windowStart + pos;
+    }
+
+    private CharSequence line(int start, int end, long bits, int next) {
+        pos = next;
+        lineNumber++;
+        if (ByteScanner.nonAscii(bits) && !latin1) {
+            byte[] bytes = new byte[end - start];
+            window.get(start, bytes);
+            return new String(bytes, charset);
+        }
+        return line.set(window, start, end - start);
+    }
+
+    /**
+     * Maps a new window starting at the current line, larger than the current
+     * one if the line already starts at the beginning of the window.
+     */
+    private void extend() throws IOException {
+        int length = window.limit();
+        if (pos == 0) {
+            if (length >= Integer.MAX_VALUE / 2) {
+                // a mapping cannot hold the line, whatever the limit
+                throw FlatFileTransformer.lineTooLong(lineNumber + 1,
+                        (int) Math.min(maxLineLength, length));
+            }
+            length *= 2;
+        } else {
+            length = Math.max(length, windowSize);
+        }
+        map(windowStart + pos, length);
+    }
+
+    private void map(long offset, int length) throws IOException {
+        window = channel.map(FileChannel.MapMode.READ_ONLY, offset,
+                Math.min(length, size - offset));
+        windowStart = offset;
+        pos = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        if (ownsChannel) {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ *  Copyright 2005 AverConsulting Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.aver.fft.impl;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+import org.aver.fft.FileRecordListener;
+import org.aver.fft.FileResult;
+import org.aver.fft.ParseOptions;
+import org.aver.fft.TransformerException;
+
+/**
+ * Parses several files at once, each on a virtual thread of its own. A
+ * semaphore bounds how many files are open and being parsed at a time; the
+ * other threads wait for a permit, which costs next to nothing on a virtual
+ * thread. Each call creates its own parser, so the bound holds per call, not
+ * across calls made at the same time.
+ * 
+ * @author Mathew Thomas
+ */
+final class MultiFileParser {
+    private final FlatFileTransformer transformer;
+
+    private final FileRecordListener listener;
+
+    private final Semaphore openFiles;
+
+    /** How to read each file. */
+    private final ParseOptions options;
+
+    MultiFileParser(FlatFileTransformer transformer,
+            FileRecordListener listener, int maxOpenFiles, ParseOptions options) {
+        this.transformer = transformer;
+        this.listener = listener;
+        this.openFiles = new Semaphore(maxOpenFiles);
+        this.options = options;
+    }
+
+    /**
+     * Parses the files and waits for all of them to finish.
+     * 
+     * @return the result of each file, in the order of the files
+     */
+    List<FileResult> parse(Collection<Path> files) {
+        List<Future<FileResult>> futures = new ArrayList<>(files.size());
+        try (ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Path file : files) {
+                futures.add(threads.submit(() -> parse(file)));
+            }
+        }
+
+        List<FileResult> results = new ArrayList<>(futures.size());
+        for (Future<FileResult> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new TransformerException("Interrupted while parsing", e);
+            } catch (ExecutionException e) {
+                // parse(Path) catches everything the file can throw
+                throw new TransformerException("Error parsing files", e);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Parses one file. Runs on its own virtual thread.
+     */
+    private FileResult parse(Path file) throws InterruptedException {
+        FileSink sink = new FileSink(file);
+        TransformerException failure = null;
+        openFiles.acquire();
+        try {
+            try {
+                transformer.parseFile(file.toFile(), sink, options);
+            } catch (TransformerException e) {
+                failure = e;
+            }
+
+            FileResult result = new FileResult(file, sink.records,
+                    sink.unresolved, sink.stopped, failure);
+            listener.fileCompleted(result);
+            return result;
+        } finally {
+            openFiles.release();
+        }
+    }
+
+    /** Tags the records of one file and counts them. */
+    private final class FileSink implements RecordSink {
+        private final Path file;
+
+        long records;
+
+        long unresolved;
+
+        boolean stopped;
+
+        FileSink(Path file) {
+            this.file = file;
+        }
+
+        @Override
+        public boolean record(Object bean, long lineNumber) {
+            records++;
+            stopped = !listener.foundRecord(file, lineNumber, bean);
+            return !stopped;
+        }
+
+        @Override
+        public boolean unresolved(String line, long lineNumber) {
+            unresolved++;
+            stopped = !listener.unresolvableRecord(file, lineNumber, line);
+            return !stopped;
+        }
+    }
+}
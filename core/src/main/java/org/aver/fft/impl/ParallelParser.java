@@ -0,0 +1,285 @@
+/*
+ *  Copyright 2005 AverConsulting Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.aver.fft.impl;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.aver.fft.ParseOptions;
+import org.aver.fft.TransformerException;
+import org.aver.fft.TransformerLimitException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Parses one file on several threads. The file is split at line boundaries
+ * into byte ranges, each range is read through a {@link MappedLineReader} and
+ * loaded into beans on a <code>ForkJoinPool</code>, and the results are handed
+ * to the sink on the calling thread, in file order or as ranges finish.
+ * <p>
+ * Only a few ranges per thread are in flight at a time, so memory stays
+ * bounded whatever the size of the file. Limits are checked as the results
+ * are delivered, so they fail at the same line as a sequential parse. When
+ * the sink asks to stop, the workers stop at their next line. A quoted column
+ * may hold line breaks, but not across the boundary of two ranges: such a
+ * file fails with a <code>TransformerException</code> and must be parsed with
+ * a parallelism of 1.
+ * <p>
+ * Unordered, a range is delivered before the ranges ahead of it have been
+ * read, so its line numbers are not known: lines are numbered in delivery
+ * order instead, which keeps the <code>maxLines</code> check a count of the
+ * lines read.
+ * 
+ * @author Mathew Thomas
+ */
+final class ParallelParser {
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(ParallelParser.class);
+
+    /** Smallest byte range worth a task of its own. */
+    static final long MIN_CHUNK_SIZE = 64 * 1024;
+
+    /** Largest byte range, bounds the records buffered per range. */
+    static final long MAX_CHUNK_SIZE = 8 * 1024 * 1024;
+
+    /** A line that could not be loaded into a bean. */
+    private record Unresolved(String line) {
+    }
+
+    /** A line over the length limit, reported when its turn comes. */
+    private record TooLong(int length) {
+    }
+
+    /** The result of a record read from several lines of the file. */
+    private record Joined(Object result, int lines) {
+    }
+
+    /** Results of one byte range, in line order. */
+    private record Chunk(int index, List<Object> results) {
+    }
+
+    private final FlatFileTransformer transformer;
+
+    private final Record rec;
+
+    private final Charset charset;
+
+    private final int parallelism;
+
+    private final boolean ordered;
+
+    private final AtomicBoolean stopped = new AtomicBoolean();
+
+    ParallelParser(FlatFileTransformer transformer, Record rec,
+            Charset charset, ParseOptions options) {
+        this.transformer = transformer;
+        this.rec = rec;
+        this.charset = charset;
+        this.parallelism = options.parallelism();
+        this.ordered = options.ordered();
+    }
+
+    /**
+     * Parses the file, notifying the listener of every record until the file
+     * ends or the listener asks to stop.
+     */
+    void parse(Path file, RecordSink sink) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long start = transformer.isSkipFirstLine()
+                    ? nextLineStart(channel, 0, size) : 0;
+            List<long[]> ranges = split(channel, start, size);
+
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                if (deliver(channel, size, ranges,
+                        new ExecutorCompletionService<>(pool), sink)) {
+                    sink.finish();
+                }
+            } catch (TransformerLimitException e) {
+                // deliver what was read before the limit was hit
+                sink.flush();
+                throw e;
+            } finally {
+                stopped.set(true);
+                pool.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Hands the results of the ranges to the sink.
+     * 
+     * @return false if the sink asked to stop
+     */
+    private boolean deliver(FileChannel channel, long size, List<long[]> ranges,
+            CompletionService<Chunk> completed, RecordSink sink) {
+        int maxInFlight = parallelism * 2;
+        Map<Integer, Chunk> ready = new HashMap<>();
+        int submitted = 0;
+        int delivered = 0;
+        long lineCount = transformer.isSkipFirstLine() ? 1 : 0;
+
+        while (delivered < ranges.size()) {
+            while (submitted < ranges.size()
+                    && submitted - delivered < maxInFlight) {
+                final int index = submitted++;
+                final long[] range = ranges.get(index);
+                completed.submit(() -> new Chunk(index,
+                        parseRange(channel, range[0], range[1], size)));
+            }
+
+            Chunk chunk = take(completed);
+            ready.put(chunk.index(), chunk);
+            while (!ready.isEmpty()) {
+                chunk = ready.remove(ordered ? Integer.valueOf(delivered)
+                        : ready.keySet().iterator().next());
+                if (chunk == null) {
+                    break;
+                }
+                delivered++;
+                // unordered, lineCount is the delivery count, see class doc
+                for (Object result : chunk.results()) {
+                    long lineNumber = lineCount + 1;
+                    if (result instanceof Joined j) {
+                        result = j.result();
+                        lineCount += j.lines();
+                    } else {
+                        lineCount++;
+                    }
+                    transformer.checkLimits(result instanceof TooLong t
+                            ? t.length() : 0, lineCount);
+                    boolean continueReading = result instanceof Unresolved u
+                            ? sink.unresolved(u.line(), lineNumber)
+                            : sink.record(result, lineNumber);
+                    if (!continueReading) {
+                        LOGGER.info("Aborted reading of file at line# " + lineNumber);
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private static Chunk take(CompletionService<Chunk> completed) {
+        try {
+            return completed.take().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TransformerException("Interrupted while parsing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new TransformerException("Error parsing file range", e.getCause());
+        }
+    }
+
+    /**
+     * Loads the lines of one byte range. Runs on a pool thread.
+     */
+    private List<Object> parseRange(FileChannel channel, long start, long end,
+            long size) {
+        List<Object> results = new ArrayList<>();
+        TokenList tokens = new TokenList(transformer, rec);
+        int maxLineLength = transformer.maxLineLength();
+        try (MappedLineReader reader = new MappedLineReader(channel, start,
+                end, charset, maxLineLength)) {
+            FlatFileTransformer.LineSource records = transformer.records(reader::readLine,
+                    () -> new MappedLineReader(channel, end, size, charset, maxLineLength));
+            CharSequence line;
+            while (!stopped.get() && (line = records.readLine()) != null) {
+                if (line.length() > maxLineLength) {
+                    // stop here, the coordinator fails at this line
+                    results.add(new TooLong(line.length()));
+                    break;
+                }
+                Object result;
+                try {
+                    result = transformer.loadRecord(line, tokens);
+                } catch (TransformerException e) {
+                    result = new Unresolved(line.toString());
+                }
+                int lines = records.linesRead();
+                results.add(lines > 1 ? new Joined(result, lines) : result);
+            }
+        } catch (TransformerLimitException e) {
+            // the reader counts lines from the start of the range, the
+            // coordinator knows the line number in the file
+            results.add(new TooLong(maxLineLength + 1));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return results;
+    }
+
+    /**
+     * Splits the bytes from start to size into ranges that each begin at a
+     * line start.
+     */
+    private List<long[]> split(FileChannel channel, long start, long size)
+            throws IOException {
+        long chunkSize = Math.clamp((size - start) / (parallelism * 4L),
+                MIN_CHUNK_SIZE, MAX_CHUNK_SIZE);
+        List<long[]> ranges = new ArrayList<>();
+        while (start < size) {
+            long end = start + chunkSize >= size ? size
+                    : nextLineStart(channel, start + chunkSize - 1, size);
+            ranges.add(new long[] { start, end });
+            start = end;
+        }
+        return ranges;
+    }
+
+    /**
+     * Returns the offset just past the first <code>\n</code> at or after the
+     * position, or the size if there is none.
+     */
+    static long nextLineStart(FileChannel channel, long position, long size)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ *  Copyright 2005 AverConsulting Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.aver.fft.impl;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.aver.fft.PipelineStatistics;
+
+/**
+ * The {@link PipelineStatistics} a {@link PipelinedParser} counts in. Only the
+ * parser can update the counters.
+ * 
+ * @author Mathew Thomas
+ */
+public final class PipelineCounters implements PipelineStatistics {
+    private final AtomicLong batches = new AtomicLong();
+
+    private final AtomicLong queueDepth = new AtomicLong();
+
+    private final AtomicLong maxQueueDepth = new AtomicLong();
+
+    private final AtomicLong readerStalls = new AtomicLong();
+
+    private final AtomicLong binderStalls = new AtomicLong();
+
+    private final AtomicLong listenerStalls = new AtomicLong();
+
+    @Override
+    public long getBatches() {
+        return batches.get();
+    }
+
+    @Override
+    public long getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    @Override
+    public long getMaxQueueDepth() {
+        return maxQueueDepth.get();
+    }
+
+    @Override
+    public long getReaderStalls() {
+        return readerStalls.get();
+    }
+
+    @Override
+    public long getBinderStalls() {
+        return binderStalls.get();
+    }
+
+    @Override
+    public long getListenerStalls() {
+        return listenerStalls.get();
+    }
+
+    void batchQueued() {
+        batches.incrementAndGet();
+        maxQueueDepth.accumulateAndGet(queueDepth.incrementAndGet(), Math::max);
+    }
+
+    void batchDelivered() {
+        queueDepth.decrementAndGet();
+    }
+
+    void readerStalled() {
+        readerStalls.incrementAndGet();
+    }
+
+    void binderStalled() {
+        binderStalls.incrementAndGet();
+    }
+
+    void listenerStalled() {
+        listenerStalls.incrementAndGet();
+    }
+
+    @Override
+    public String toString() {
+        return "PipelineStatistics[batches=" + getBatches() + ", queueDepth="
+                + getQueueDepth() + ", maxQueueDepth=" + getMaxQueueDepth()
+                + ", readerStalls=" + getReaderStalls() + ", binderStalls="
+                + getBinderStalls() + ", listenerStalls="
+                + getListenerStalls() + "]";
+    }
+}
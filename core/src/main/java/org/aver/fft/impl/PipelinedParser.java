@@ -0,0 +1,393 @@
+/*
+ *  Copyright 2005 AverConsulting Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.aver.fft.impl;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.aver.fft.ParseOptions;
+import org.aver.fft.PipelineStatistics;
+import org.aver.fft.TransformerException;
+import org.aver.fft.TransformerLimitException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Parses lines in a pipeline of stages running on their own threads: one
+ * thread reads the lines and groups them in batches, a number of binder
+ * threads load the batches into beans, and the calling thread hands the beans
+ * to the sink in file order. Unlike {@link ParallelParser} it only needs the
+ * lines one after the other, so it works on any input.
+ * <p>
+ * The stages share a ring of preallocated batches. Each stage owns a cursor
+ * (read, claimed, delivered) and a batch moves on when the cursor of the
+ * stage before it has passed it, so no locks or queues are involved. A stage
+ * that runs ahead spins briefly and then parks until the others catch up;
+ * each such wait is counted in the {@link PipelineCounters}.
+ * <p>
+ * When beans are reused each slot keeps the beans of its lines, which are
+ * loaded again when the slot comes round after its records were delivered.
+ * 
+ * @author Mathew Thomas
+ */
+final class PipelinedParser {
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(PipelinedParser.class);
+
+    /** Lines per batch. */
+    static final int BATCH_LINES = 256;
+
+    /** A line that could not be loaded into a bean. */
+    private record Unresolved(String line) {
+    }
+
+    /** One slot of the ring. */
+    private static final class Batch {
+        final String[] lines = new String[BATCH_LINES];
+
+        final Object[] results = new Object[BATCH_LINES];
+
+        /** Beans kept for the next round when beans are reused. */
+        final Object[] beans = new Object[BATCH_LINES];
+
+        int size;
+
+        /** Line of the input each line starts on. */
+        final long[] lineNumbers = new long[BATCH_LINES];
+
+        Throwable error;
+
+        /** Sequence of the batch whose results are loaded, written last. */
+        volatile long loaded = -1;
+    }
+
+    private final FlatFileTransformer transformer;
+
+    private final Record rec;
+
+    private final int binders;
+
+    private final PipelineCounters statistics;
+
+    private final boolean reuseBeans;
+
+    private final Batch[] ring;
+
+    private final int mask;
+
+    /** Batches read; written by the reader only. */
+    private final AtomicLong read = new AtomicLong();
+
+    /** Batches taken by a binder. */
+    private final AtomicLong claimed = new AtomicLong();
+
+    /** Batches handed to the sink; written by the calling thread only. */
+    private final AtomicLong delivered = new AtomicLong();
+
+    /** Number of batches once the input is exhausted. */
+    private volatile long end = Long.MAX_VALUE;
+
+    /** Why the reader stopped early, reported after the batches before it. */
+    private volatile Throwable readError;
+
+    private volatile boolean stopped;
+
+    PipelinedParser(FlatFileTransformer transformer, Record rec,
+            ParseOptions options) {
+        this.transformer = transformer;
+        this.rec = rec;
+        this.binders = options.parallelism();
+        this.statistics = counters(options.statistics());
+        this.reuseBeans = options.reuseBeans();
+        this.ring = new Batch[Integer.highestOneBit(Math.max(8, binders * 4) - 1) << 1];
+        for (int i = 0; i < ring.length; i++) {
+            ring[i] = new Batch();
+        }
+        this.mask = ring.length - 1;
+    }
+
+    /**
+     * Returns the counters the parse updates.
+     * 
+     * @throws TransformerException
+     *             if the statistics were not created by the library
+     */
+    private static PipelineCounters counters(PipelineStatistics statistics) {
+        if (statistics == null) {
+            return new PipelineCounters();
+        }
+        if (statistics instanceof PipelineCounters counters) {
+            return counters;
+        }
+        throw new TransformerException(
+                "Statistics must come from PipelineStatistics.create()");
+    }
+
+    /**
+     * Parses the lines, notifying the sink of every record until the input
+     * ends or the sink asks to stop. Returns once the reader and binder
+     * threads have finished, so the source can be closed afterwards. If the
+     * parse stops before the reader reached the end of the input, the source
+     * is closed and the reader interrupted, as it may be blocked reading.
+     */
+    void parse(FlatFileTransformer.LineSource lines, RecordSink sink) {
+        ExecutorService threads = Executors.newFixedThreadPool(binders + 1);
+        try {
+            threads.execute(() -> read(lines));
+            for (int i = 0; i < binders; i++) {
+                threads.execute(this::bind);
+            }
+            if (deliver(sink)) {
+                finish(sink);
+            }
+        } finally {
+            stopped = true;
+            if (end == Long.MAX_VALUE) {
+                threads.shutdownNow();
+                close(lines);
+            } else {
+                threads.shutdown();
+            }
+            awaitTermination(threads);
+        }
+    }
+
+    /**
+     * Reads the lines into batches. Runs on the reader thread.
+     */
+    private void read(FlatFileTransformer.LineSource lines) {
+        long sequence = 0;
+        Batch batch = null;
+        try {
+            long lineCount = 0;
+            CharSequence line;
+            while (!stopped && (line = lines.readLine()) != null) {
+                long lineNumber = lineCount + 1;
+                lineCount += lines.linesRead();
+                transformer.checkLimits(line.length(), lineCount);
+                if (transformer.isSkipFirstLine() && lineNumber == 1) {
+                    continue;
+                }
+                if (batch == null) {
+                    batch = claimSlot(sequence);
+                    if (batch == null) {
+                        return;
+                    }
+                    batch.size = 0;
+                    batch.error = null;
+                }
+                batch.lineNumbers[batch.size] = lineNumber;
+                batch.lines[batch.size++] = line.toString();
+                if (batch.size == BATCH_LINES) {
+                    publish(sequence++);
+                    batch = null;
+                }
+            }
+        } catch (Throwable e) {
+            readError = e;
+        } finally {
+            if (batch != null) {
+                publish(sequence++);
+            }
+            end = sequence;
+        }
+    }
+
+    /**
+     * Waits for the slot of the batch to be free.
+     * 
+     * @return the slot, or null if the parse was stopped
+     */
+    private Batch claimSlot(long sequence) {
+        int spins = 0;
+        while (sequence - delivered.get() >= ring.length) {
+            if (stopped) {
+                return null;
+            }
+            if (spins == 0) {
+                statistics.readerStalled();
+            }
+            spins = idle(spins);
+        }
+        return ring[(int) sequence & mask];
+    }
+
+    private void publish(long sequence) {
+        read.set(sequence + 1);
+        statistics.batchQueued();
+    }
+
+    /**
+     * Loads batches into beans until the input is exhausted. Runs on each
+     * binder thread.
+     */
+    private void bind() {
+        TokenList tokens = new TokenList(transformer, rec);
+        int spins = 0;
+        while (!stopped) {
+            // end is set after the last batch is published, so read it first
+            long last = end;
+            long sequence = claimed.get();
+            if (sequence >= read.get()) {
+                if (sequence >= last) {
+                    return;
+                }
+                if (spins == 0) {
+                    statistics.binderStalled();
+                }
+                spins = idle(spins);
+                continue;
+            }
+            if (!claimed.compareAndSet(sequence, sequence + 1)) {
+                continue;
+            }
+            spins = 0;
+
+            Batch batch = ring[(int) sequence & mask];
+            try {
+                for (int i = 0; i < batch.size; i++) {
+                    String line = batch.lines[i];
+                    batch.lines[i] = null;
+                    try {
+                        Object bean = transformer.loadRecord(line, tokens,
+                                batch.beans[i]);
+                        batch.results[i] = bean;
+                        if (reuseBeans) {
+                            batch.beans[i] = bean;
+                        }
+                    } catch (TransformerException e) {
+                        LOGGER.debug("Failed to parse line {}: {}",
+                                batch.lineNumbers[i], e.getMessage());
+                        batch.results[i] = new Unresolved(line);
+                    }
+                }
+            } catch (Throwable e) {
+                batch.error = e;
+            }
+            batch.loaded = sequence;
+        }
+    }
+
+    /**
+     * Hands the loaded batches to the sink in order. Runs on the calling
+     * thread.
+     * 
+     * @return false if the sink asked to stop
+     */
+    private boolean deliver(RecordSink sink) {
+        for (long sequence = 0;; sequence++) {
+            Batch batch = ring[(int) sequence & mask];
+            int spins = 0;
+            while (batch.loaded != sequence) {
+                if (sequence >= end) {
+                    return true;
+                }
+                if (spins == 0) {
+                    statistics.listenerStalled();
+                }
+                spins = idle(spins);
+            }
+
+            if (batch.error != null) {
+                throw rethrow(batch.error);
+            }
+            for (int i = 0; i < batch.size; i++) {
+                Object result = batch.results[i];
+                batch.results[i] = null;
+                long lineNumber = batch.lineNumbers[i];
+                boolean continueReading = result instanceof Unresolved u
+                        ? sink.unresolved(u.line(), lineNumber)
+                        : sink.record(result, lineNumber);
+                if (!continueReading) {
+                    LOGGER.info("Aborted reading of file at line# " + lineNumber);
+                    stopped = true;
+                    return false;
+                }
+            }
+            delivered.set(sequence + 1);
+            statistics.batchDelivered();
+        }
+    }
+
+    /**
+     * Ends the parse once every batch was delivered, reporting why the reader
+     * stopped if it did not reach the end of the input.
+     */
+    private void finish(RecordSink sink) {
+        Throwable error = readError;
+        if (error instanceof TransformerLimitException e) {
+            // deliver what was read before the limit was hit
+            sink.flush();
+            throw e;
+        }
+        if (error != null) {
+            throw rethrow(error);
+        }
+        sink.finish();
+    }
+
+    private static RuntimeException rethrow(Throwable error) {
+        if (error instanceof RuntimeException e) {
+            return e;
+        }
+        if (error instanceof Error e) {
+            throw e;
+        }
+        if (error instanceof IOException e) {
+            return new TransformerException(e);
+        }
+        return new TransformerException("Error parsing lines", error);
+    }
+
+    /**
+     * Waits a little: spins at first, then yields, then parks.
+     * 
+     * @return the spin count to pass next time
+     */
+    private static int idle(int spins) {
+        if (spins < 100) {
+            Thread.onSpinWait();
+        } else if (spins < 200) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(50_000);
+        }
+        return spins + 1;
+    }
+
+    private static void close(FlatFileTransformer.LineSource lines) {
+        try {
+            lines.close();
+        } catch (IOException e) {
+            LOGGER.debug("Failed to close the input: {}", e.getMessage());
+        }
+    }
+
+    private static void awaitTermination(ExecutorService threads) {
+        try {
+            threads.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            threads.shutdownNow();
+        }
+    }
+}
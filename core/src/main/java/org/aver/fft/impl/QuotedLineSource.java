@@ -0,0 +1,188 @@
+/*
+ *  Copyright 2005 AverConsulting Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.aver.fft.impl;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+
+import org.aver.fft.TransformerException;
+import org.aver.fft.TransformerLimitException;
+
+/**
+ * Joins the lines of a record whose quoted column holds line breaks. A line
+ * that ends inside a quoted column is followed by the next line, separated
+ * by <code>\n</code>, until the quote closes. Lines without a quote are
+ * passed through as they are.
+ * <p>
+ * A quote that does not close within {@link #MAX_JOINED_LINES} lines, the
+ * maximum record length or the rest of the file is taken to be a stray
+ * quote: the line is returned on its own, where the tokenizer rejects it as
+ * unresolvable, and the lines read past it are read again as records of
+ * their own.
+ * <p>
+ * When the input is one byte range of a file parsed in parallel, a quote
+ * still open at the end of the range is looked up in the lines after it. If
+ * it closes there, the record was cut in two where the file was split, and
+ * the parse fails rather than loading both halves as records.
+ * 
+ * @author Mathew Thomas
+ */
+final class QuotedLineSource implements FlatFileTransformer.LineSource {
+    /** Most lines joined into one record. */
+    static final int MAX_JOINED_LINES = 100;
+
+    private final FlatFileTransformer.LineSource lines;
+
+    private final Separator separator;
+
+    private final int maxLength;
+
+    /** Opens the lines after a byte range, null for a whole file. */
+    private final Continuation rest;
+
+    /** Lines read ahead of a stray quote, to be returned again. */
+    private final ArrayDeque<String> pending = new ArrayDeque<>();
+
+    /** Lines of the input the last record was read from. */
+    private int linesRead;
+
+    /**
+     * @param lines
+     *            lines of the file
+     * @param separator
+     *            column separator
+     * @param maxLength
+     *            a record is not joined past this length
+     */
+    QuotedLineSource(FlatFileTransformer.LineSource lines, Separator separator,
+            int maxLength) {
+        this(lines, separator, maxLength, null);
+    }
+
+    /**
+     * @param lines
+     *            lines of a byte range of the file
+     * @param separator
+     *            column separator
+     * @param maxLength
+     *            a record is not joined past this length
+     * @param rest
+     *            opens the lines of the file after the range, null if the
+     *            lines are the whole file
+     */
+    QuotedLineSource(FlatFileTransformer.LineSource lines, Separator separator,
+            int maxLength, Continuation rest) {
+        this.lines = lines;
+        this.separator = separator;
+        this.maxLength = maxLength;
+        this.rest = rest;
+    }
+
+    /**
+     * Opens the lines that follow a byte range.
+     */
+    @FunctionalInterface
+    interface Continuation {
+        FlatFileTransformer.LineSource open() throws IOException;
+    }
+
+    @Override
+    public CharSequence readLine() throws IOException {
+        linesRead = 1;
+        CharSequence line = next();
+        if (line == null || TokenList.indexOf(line, '"', 0, line.length()) < 0) {
+            return line;
+        }
+        int state = TokenList.scan(line, separator, 0, line.length(), TokenList.FIELD_START);
+        if (state != TokenList.QUOTED) {
+            return line;
+        }
+
+        // the line may be a view of the reader buffer, copy it before
+        // reading on
+        String first = line.toString();
+        StringBuilder record = new StringBuilder(first);
+        ArrayDeque<String> joined = new ArrayDeque<>();
+        while (state == TokenList.QUOTED && joined.size() < MAX_JOINED_LINES - 1
+                && record.length() <= maxLength) {
+            CharSequence next = next();
+            if (next == null) {
+                if (rest != null) {
+                    checkNotCut(state, joined.size() + 1, record.length());
+                }
+                break;
+            }
+            String text = next.toString();
+            joined.add(text);
+            record.append('\n').append(text);
+            state = TokenList.scan(text, separator, 0, text.length(), state);
+        }
+        if (state == TokenList.QUOTED || record.length() > maxLength) {
+            // a stray quote, read the lines after it again
+            while (!joined.isEmpty()) {
+                pending.addFirst(joined.removeLast());
+            }
+            return first;
+        }
+        linesRead += joined.size();
+        return record;
+    }
+
+    /**
+     * Follows a quote that is open at the end of the range into the lines
+     * after it, with the limits of a record read from the whole file.
+     * 
+     * @throws TransformerException
+     *             if the quote closes after the range
+     */
+    private void checkNotCut(int state, int count, int length) throws IOException {
+        try (FlatFileTransformer.LineSource after = rest.open()) {
+            CharSequence next;
+            while (state == TokenList.QUOTED && count < MAX_JOINED_LINES
+                    && length <= maxLength && (next = after.readLine()) != null) {
+                count++;
+                length += next.length() + 1;
+                state = TokenList.scan(next, separator, 0, next.length(), state);
+            }
+        } catch (TransformerLimitException e) {
+            // a long line ends the record, the range after reports it
+            return;
+        }
+        if (state != TokenList.QUOTED && length <= maxLength) {
+            throw new TransformerException(
+                    "A quoted column holds a line break where the file is split for parallel parsing, parse it with parallelism 1");
+        }
+    }
+
+    /**
+     * @return lines of the input the last record returned spans
+     */
+    @Override
+    public int linesRead() {
+        return linesRead;
+    }
+
+    private CharSequence next() throws IOException {
+        return pending.isEmpty() ? lines.readLine() : pending.poll();
+    }
+
+    @Override
+    public void close() throws IOException {
+        lines.close();
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ *  Copyright 2005 AverConsulting Inc.
+ * 
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.aver.fft.impl;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import org.apache.commons.lang3.StringUtils;
+import org.aver.fft.TransformerException;
+
+/**
+ * Represents a record in a flat file. The columns, converters and
+ * dictionaries are kept in arrays indexed by column, so looking them up while
+ * loading a record neither hashes nor boxes the index.
+ * 
+ * @author Mathew Thomas
+ */
+final class Record {
+    private String name;
+
+    /** Columns by index, <code>null</code> where no column is mapped. */
+    private Column[] columns = new Column[0];
+
+    /** Sorted column indexes, rebuilt as columns are added. */
+    private int[] indexes = new int[0];
+
+    /**
+     * Whether the column at an index is loaded, up to the last column that
+     * is. Skipped and unmapped columns are not.
+     */
+    private boolean[] loaded = new boolean[0];
+
+    /** Compiled binders for the columns that are loaded into the bean. */
+    private ColumnBinder[] binders = new ColumnBinder[0];
+
+    /** Converter for the property type of each column, by index. */
+    private ValueConverter[] converters = new ValueConverter[0];
+
+    /** Dictionary the strings of each column are shared through, by index. */
+    private StringDictionary[] dictionaries = new StringDictionary[0];
+
+    public Record(String name) {
+        // sanity checks
+        if (StringUtils.isEmpty(name)) {
+            throw new TransformerException("Record name must be specified");
+        }
+
+        // copy parameters
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    void addColumn(Column col) {
+        int index = col.index() - 1;
+        if (index >= columns.length) {
+            columns = Arrays.copyOf(columns, index + 1);
+        }
+        columns[index] = col;
+        indexes = IntStream.range(0, columns.length)
+                .filter(i -> columns[i] != null)
+                .toArray();
+
+        int last = -1;
+        for (int i : indexes) {
+            if (!columns[i].skip()) {
+                last = i;
+            }
+        }
+        loaded = new boolean[last + 1];
+        for (int i = 0; i <= last; i++) {
+            Column c = columns[i];
+            loaded[i] = c != null && !c.skip();
+        }
+    }
+
+    public int[] indexes() {
+        return indexes;
+    }
+
+    /**
+     * @return number of leading columns of a line that hold every loaded
+     *         column; the rest of the line need not be tokenized
+     */
+    int columnsNeeded() {
+        return loaded.length;
+    }
+
+    /**
+     * @return whether the column at the index is loaded into the bean
+     */
+    boolean isLoaded(int index) {
+        return index < loaded.length && loaded[index];
+    }
+
+    public Column getColumnAt(int index) {
+        return index >= 0 && index < columns.length ? columns[index] : null;
+    }
+
+    void setConverter(int index, ValueConverter converter) {
+        if (index >= converters.length) {
+            converters = Arrays.copyOf(converters, index + 1);
+        }
+        converters[index] = converter;
+    }
+
+    public ValueConverter getConverterAt(int index) {
+        return index >= 0 && index < converters.length ? converters[index] : null;
+    }
+
+    void setDictionary(int index, StringDictionary dictionary) {
+        if (index >= dictionaries.length) {
+            dictionaries = Arrays.copyOf(dictionaries, index + 1);
+        }
+        dictionaries[index] = dictionary;
+    }
+
+    /**
+     * @return dictionary of the column or <code>null</code> if its values are
+     *         not shared
+     */
+    public StringDictionary getDictionaryAt(int index) {
+        return index >= 0 && index < dictionaries.length ? dictionaries[index] : null;
+    }
+
+    void setBinders(ColumnBinder[] binders) {
+        this.binders = binders;
+    }
+
+    /**
+     * @return binders in column order
+     */
+    public ColumnBinder[] binders() {
+        return binders;
+    }
+}
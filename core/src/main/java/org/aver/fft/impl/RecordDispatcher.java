@@ -0,0 +1,180 @@
+/*
+ *  Copyright 2005 AverConsulting Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.aver.fft.impl;
+
+import java.util.Map;
+
+import org.aver.fft.Transformer.ColumnSeparator;
+import org.aver.fft.TransformerParseException;
+
+/**
+ * Finds the record type of a line from its record identifier. The identifier
+ * is located in place (the n-th delimited column, or a character position in
+ * a fixed length record) and looked up in an open addressing hash table by
+ * its characters, so no string is created and the line is not tokenized to
+ * find its type. A quoted identifier is looked up without its quotes.
+ * 
+ * @author Mathew Thomas
+ */
+final class RecordDispatcher {
+    private final ColumnSeparator separatorType;
+
+    private final Separator separator;
+
+    /** Column position, or character position for fixed length records. */
+    private final int column;
+
+    /** Distinct identifier lengths, for fixed length records. */
+    private final int[] lengths;
+
+    private final char[][] keys;
+
+    private final int[] hashes;
+
+    private final FlatFileTransformer[] types;
+
+    private final int mask;
+
+    /**
+     * @param identifiers
+     *            record identifier to the transformer of its type
+     * @param separatorType
+     *            delimited or fixed length records
+     * @param separator
+     *            column separator of delimited records
+     * @param column
+     *            record identifier column (see
+     *            {@link org.aver.fft.annotations.Transform#recordIdentifierColumn()})
+     */
+    RecordDispatcher(Map<String, FlatFileTransformer> identifiers,
+            ColumnSeparator separatorType, Separator separator, int column) {
+        this.separatorType = separatorType;
+        this.separator = separator;
+        this.column = column;
+        this.lengths = identifiers.keySet().stream().mapToInt(String::length)
+                .distinct().sorted().toArray();
+
+        int capacity = Integer.highestOneBit(Math.max(2, identifiers.size() * 2) - 1) << 1;
+        this.keys = new char[capacity][];
+        this.hashes = new int[capacity];
+        this.types = new FlatFileTransformer[capacity];
+        this.mask = capacity - 1;
+        identifiers.forEach((id, type) -> {
+            char[] key = id.toCharArray();
+            int hash = hash(id, 0, key.length);
+            int slot = hash & mask;
+            while (keys[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            hashes[slot] = hash;
+            types[slot] = type;
+        });
+    }
+
+    /**
+     * @return transformer for the type of the line
+     * @throws TransformerParseException
+     *             if the identifier of the line matches no type
+     */
+    FlatFileTransformer dispatch(CharSequence line) {
+        int len = line.length();
+        FlatFileTransformer type = null;
+        if (separatorType == ColumnSeparator.FIXLENGTH) {
+            int start = column - 1;
+            for (int i = 0; i < lengths.length && type == null
+                    && start + lengths[i] <= len; i++) {
+                type = find(line, start, start + lengths[i]);
+            }
+        } else if (TokenList.indexOf(line, '"', 0, len) < 0) {
+            int start = separator.start(line, len);
+            for (int i = 1; i < column && start >= 0; i++) {
+                start = separator.nextColumn(line,
+                        separator.columnEnd(line, start, len), len);
+            }
+            if (start >= 0) {
+                type = find(line, start, separator.columnEnd(line, start, len));
+            }
+        } else {
+            type = findQuoted(line, len);
+        }
+
+        if (type == null) {
+            throw new TransformerParseException("No record type for the identifier at "
+                    + (separatorType == ColumnSeparator.FIXLENGTH ? "character " : "column ")
+                    + column);
+        }
+        return type;
+    }
+
+    /**
+     * Finds the identifier of a line with quotes, where a separator inside
+     * quotes does not end a column.
+     */
+    private FlatFileTransformer findQuoted(CharSequence line, int len) {
+        int start = separator.start(line, len);
+        for (int i = 1; i < column && start >= 0; i++) {
+            start = separator.nextColumn(line,
+                    TokenList.columnEnd(line, separator, start, len), len);
+        }
+        if (start < 0) {
+            return null;
+        }
+        int end = TokenList.columnEnd(line, separator, start, len);
+        if (start == end || line.charAt(start) != '"') {
+            return find(line, start, end);
+        }
+        if (end - start >= 2 && line.charAt(end - 1) == '"'
+                && TokenList.indexOf(line, '"', start + 1, end - 1) < 0) {
+            return find(line, start + 1, end - 1);
+        }
+        String identifier = TokenList.unquote(line, start, end);
+        return find(identifier, 0, identifier.length());
+    }
+
+    private FlatFileTransformer find(CharSequence line, int from, int to) {
+        int hash = hash(line, from, to);
+        for (int slot = hash & mask; keys[slot] != null; slot = (slot + 1) & mask) {
+            if (hashes[slot] == hash && matches(keys[slot], line, from, to)) {
+                return types[slot];
+            }
+        }
+        return null;
+    }
+
+    private static boolean matches(char[] key, CharSequence line, int from, int to) {
+        if (key.length != to - from) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (key[i] != line.charAt(from + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(CharSequence chars, int from, int to) {
+        int h = 0;
+        for (int i = from; i < to; i++) {
+            h = 31 * h + chars.charAt(i);
+        }
+        // spread the low bits, the table is indexed by them
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ *  Copyright 2005 AverConsulting Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.aver.fft.impl;
+
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Publishes the records of a file as subscribers request them. Each subscriber
+ * gets its own pass over the file, which is opened when the first item is
+ * requested. Records are parsed only against outstanding demand, on the given
+ * executor, so a slow subscriber holds the parser back instead of records
+ * piling up in memory.
+ * 
+ * @author Mathew Thomas
+ */
+final class RecordPublisher<T> implements Flow.Publisher<T> {
+    private final Supplier<Stream<T>> source;
+
+    private final Executor executor;
+
+    RecordPublisher(final Supplier<Stream<T>> source, final Executor executor) {
+        this.source = source;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(final Flow.Subscriber<? super T> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        subscriber.onSubscribe(new RecordSubscription<>(source, executor, subscriber));
+    }
+
+    /**
+     * One subscriber's pass over the file. Requests and cancellation only
+     * record what was asked and schedule the drain loop; the loop itself runs
+     * on one executor thread at a time and is the only code that touches the
+     * file or signals the subscriber.
+     */
+    private static final class RecordSubscription<T> implements Flow.Subscription, Runnable {
+        private final Supplier<Stream<T>> source;
+
+        private final Executor executor;
+
+        private final Flow.Subscriber<? super T> subscriber;
+
+        private final AtomicLong demand = new AtomicLong();
+
+        /** Number of times the drain loop was asked to run. */
+        private final AtomicInteger pending = new AtomicInteger();
+
+        private volatile boolean cancelled;
+
+        private volatile IllegalArgumentException badRequest;
+
+        private Stream<T> records;
+
+        private Iterator<T> iterator;
+
+        private boolean done;
+
+        RecordSubscription(final Supplier<Stream<T>> source, final Executor executor,
+                final Flow.Subscriber<? super T> subscriber) {
+            this.source = source;
+            this.executor = executor;
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(final long n) {
+            if (n <= 0) {
+                badRequest = new IllegalArgumentException(
+                        "Requested " + n + " records, must be positive");
+            } else {
+                demand.getAndAccumulate(n, (current, added) -> {
+                    long sum = current + added;
+                    return sum < 0 ? Long.MAX_VALUE : sum;
+                });
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            schedule();
+        }
+
+        private void schedule() {
+            if (pending.getAndIncrement() == 0) {
+                try {
+                    executor.execute(this);
+                } catch (RuntimeException e) {
+                    // nothing will drain, so fail here
+                    cancelled = true;
+                    subscriber.onError(e);
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                if (!done) {
+                    drain();
+                }
+                missed = pending.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void drain() {
+            if (cancelled) {
+                close();
+                return;
+            }
+            if (badRequest != null) {
+                terminate(badRequest);
+                return;
+            }
+
+            try {
+                if (iterator == null) {
+                    records = source.get();
+                    iterator = records.iterator();
+                }
+
+                long requested = demand.get();
+                long emitted = 0;
+                while (emitted != requested) {
+                    if (cancelled) {
+                        close();
+                        return;
+                    }
+                    if (!iterator.hasNext()) {
+                        close();
+                        subscriber.onComplete();
+                        return;
+                    }
+                    subscriber.onNext(iterator.next());
+                    emitted++;
+                }
+                // complete without waiting for more demand; this reads at
+                // most one record ahead
+                if (!cancelled && !iterator.hasNext()) {
+                    close();
+                    subscriber.onComplete();
+                    return;
+                }
+                if (requested != Long.MAX_VALUE) {
+                    demand.addAndGet(-emitted);
+                }
+            } catch (RuntimeException e) {
+                terminate(e);
+            }
+        }
+
+        private void terminate(final Throwable error) {
+            close();
+            subscriber.onError(error);
+        }
+
+        private void close() {
+            done = true;
+            if (records != null) {
+                records.close();
+                records = null;
+            }
+        }
+    }
+}
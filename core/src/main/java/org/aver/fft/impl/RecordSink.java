@@ -0,0 +1,107 @@
+/*
+ *  Copyright 2005 AverConsulting Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.aver.fft.impl;
+
+import org.aver.fft.BatchRecordListener;
+import org.aver.fft.RecordBatch;
+import org.aver.fft.RecordListener;
+
+/**
+ * Receives the results of parsing a file, line by line. This is what the
+ * parsers deliver to; it adapts them to the listener the caller registered.
+ * 
+ * @author Mathew Thomas
+ */
+interface RecordSink {
+    /**
+     * @return true to continue reading, false to stop
+     */
+    boolean record(Object bean, long lineNumber);
+
+    /**
+     * @return true to continue reading, false to stop
+     */
+    boolean unresolved(String line, long lineNumber);
+
+    /**
+     * Called before a limit exception is thrown, to hand on what was read
+     * before the limit was hit.
+     */
+    default void flush() {
+    }
+
+    /**
+     * Called once all lines were delivered, but not after the sink asked to
+     * stop.
+     */
+    default void finish() {
+        flush();
+    }
+
+    static RecordSink of(RecordListener listener) {
+        return new RecordSink() {
+            @Override
+            public boolean record(Object bean, long lineNumber) {
+                return listener.foundRecord(bean);
+            }
+
+            @Override
+            public boolean unresolved(String line, long lineNumber) {
+                return listener.unresolvableRecord(line);
+            }
+
+            @Override
+            public void finish() {
+                listener.finished();
+            }
+        };
+    }
+
+    /**
+     * Collects the lines into a reused {@link RecordBatch} and hands it to the
+     * listener each time it fills up.
+     */
+    static RecordSink of(BatchRecordListener listener, int batchSize) {
+        ArrayRecordBatch batch = new ArrayRecordBatch(batchSize);
+        return new RecordSink() {
+            @Override
+            public boolean record(Object bean, long lineNumber) {
+                batch.addRecord(bean, lineNumber);
+                return !batch.isFull() || deliver();
+            }
+
+            @Override
+            public boolean unresolved(String line, long lineNumber) {
+                batch.addUnresolved(line, lineNumber);
+                return !batch.isFull() || deliver();
+            }
+
+            @Override
+            public void flush() {
+                if (!batch.isEmpty()) {
+                    deliver();
+                }
+            }
+
+            private boolean deliver() {
+                boolean continueReading = listener.foundRecords(batch);
+                batch.clear();
+                return continueReading;
+            }
+        };
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ *  Copyright 2005 AverConsulting Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.aver.fft.impl;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.aver.fft.TransformerException;
+import org.aver.fft.TransformerLimitException;
+
+/**
+ * Spliterator over the records of a byte range of a file. Records are loaded
+ * one line at a time as the stream pulls them, and {@link #trySplit()} hands
+ * off the first half of the remaining range, cut at a line boundary, so that
+ * parallel streams parse different parts of the file on different threads.
+ * A quoted column that holds a line break at a split point fails the stream
+ * with a <code>TransformerException</code>, such a file must be streamed
+ * sequentially.
+ * <p>
+ * A range split off the middle of the file does not know the number of its
+ * first line. It is counted from the last known position only when an error
+ * reports a line number, so parsing does not read the file twice.
+ * 
+ * @author Mathew Thomas
+ */
+final class RecordSpliterator<T> implements Spliterator<T> {
+    /** Ranges smaller than twice this are not split any further. */
+    static final long MIN_SPLIT_SIZE = 64 * 1024;
+
+    private final FlatFileTransformer transformer;
+
+    private final Record rec;
+
+    private final FileChannel channel;
+
+    private final Charset charset;
+
+    /**
+     * Lines read by this spliterator and the ones split from it, for the
+     * <code>maxLines</code> check.
+     */
+    private final AtomicLong lineCount;
+
+    /** File offset of a line start whose line number is known. */
+    private final long knownStart;
+
+    /** Lines of the file before {@link #knownStart}. */
+    private final long knownLines;
+
+    /** Lines of the file before {@link #start}, -1 until counted. */
+    private long linesBefore;
+
+    /** Lines read from this range. */
+    private long linesRead;
+
+    private long start;
+
+    private final long end;
+
+    private MappedLineReader reader;
+
+    /** Records of the reader, see {@link FlatFileTransformer#records}. */
+    private FlatFileTransformer.LineSource records;
+
+    private TokenList tokens;
+
+    /**
+     * @param linesBefore
+     *            lines of the file before the start of the range
+     */
+    RecordSpliterator(FlatFileTransformer transformer, Record rec,
+            FileChannel channel, Charset charset, long start, long end,
+            long linesBefore) {
+        this(transformer, rec, channel, charset, start, end,
+                new AtomicLong(linesBefore), start, linesBefore);
+    }
+
+    private RecordSpliterator(FlatFileTransformer transformer, Record rec,
+            FileChannel channel, Charset charset, long start, long end,
+            AtomicLong lineCount, long knownStart, long knownLines) {
+        this.transformer = transformer;
+        this.rec = rec;
+        this.channel = channel;
+        this.charset = charset;
+        this.start = start;
+        this.end = end;
+        this.lineCount = lineCount;
+        this.knownStart = knownStart;
+        this.knownLines = knownLines;
+        this.linesBefore = start == knownStart ? knownLines : -1;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        if (reader == null) {
+            if (start >= end) {
+                return false;
+            }
+            reader = new MappedLineReader(channel, start, end, charset,
+                    transformer.maxLineLength());
+            records = transformer.records(reader::readLine,
+                    () -> new MappedLineReader(channel, end, channel.size(), charset,
+                            transformer.maxLineLength()));
+            if (tokens == null) {
+                tokens = new TokenList(transformer, rec);
+            }
+        }
+
+        CharSequence line;
+        try {
+            line = records.readLine();
+        } catch (TransformerLimitException e) {
+            // the reader counts lines from the start of its range
+            throw FlatFileTransformer.lineTooLong(lineNumber(linesRead + 1),
+                    transformer.maxLineLength());
+        } catch (IOException e) {
+            throw new TransformerException(e);
+        }
+        if (line == null) {
+            start = end;
+            reader = null;
+            return false;
+        }
+
+        int lines = records.linesRead();
+        long firstLine = linesRead + 1;
+        linesRead += lines;
+        transformer.checkLimits(0, lineCount.addAndGet(lines));
+        if (line.length() > transformer.maxLineLength()) {
+            throw FlatFileTransformer.lineTooLong(lineNumber(firstLine),
+                    transformer.maxLineLength());
+        }
+        action.accept(transformer.<T> streamRecord(line, tokens,
+                () -> lineNumber(firstLine)));
+        return true;
+    }
+
+    /**
+     * Returns the number in the file of a line of this range, counting the
+     * lines before the range the first time it is asked for.
+     * 
+     * @param line
+     *            line of the range, starting from 1
+     */
+    private long lineNumber(long line) {
+        if (linesBefore < 0) {
+            long count = knownLines;
+            try (MappedLineReader before = new MappedLineReader(channel,
+                    knownStart, start, charset, Integer.MAX_VALUE)) {
+                while (before.readLine() != null) {
+                    count++;
+                }
+            } catch (IOException e) {
+                throw new TransformerException(e);
+            }
+            linesBefore = count;
+        }
+        return linesBefore + line;
+    }
+
+    /**
+     * Splits off the first half of the range. A range is only split before
+     * it is read, as the lines read ahead of a stray quote would be lost.
+     */
+    @Override
+    public Spliterator<T> trySplit() {
+        if (reader != null || end - start < 2 * MIN_SPLIT_SIZE) {
+            return null;
+        }
+
+        long mid;
+        try {
+            mid = ParallelParser.nextLineStart(channel, start + (end - start) / 2 - 1, end);
+        } catch (IOException e) {
+            throw new TransformerException(e);
+        }
+        if (mid >= end) {
+            return null;
+        }
+
+        // this spliterator keeps the second half, the prefix is handed off
+        RecordSpliterator<T> prefix = new RecordSpliterator<>(transformer, rec,
+                channel, charset, start, mid, lineCount, knownStart, knownLines);
+        start = mid;
+        linesBefore = -1;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return end - (reader == null ? start : reader.position());
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+}
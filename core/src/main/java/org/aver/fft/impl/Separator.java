@@ -0,0 +1,164 @@
+/*
+ *  Copyright 2005 AverConsulting Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.aver.fft.impl;
+
+import java.util.Arrays;
+
+/**
+ * Column separator of delimited records, compiled once per transformer. A
+ * one character separator is found with {@link TokenList#indexOf}; a longer
+ * one with a Horspool search, whose skip table lets the search move past
+ * several characters at a time. When runs of separators are collapsed, as
+ * in space aligned reports, separators at the start and end of a line are
+ * ignored too.
+ * 
+ * @author Mathew Thomas
+ */
+final class Separator {
+    private final String text;
+
+    private final int length;
+
+    private final char last;
+
+    private final boolean collapse;
+
+    /**
+     * Horspool shift for a character, at [character &amp; 0xFF]. Characters
+     * that share the low byte take the smallest shift, which is always safe.
+     */
+    private final int[] shift;
+
+    /**
+     * @param text
+     *            separator, at least one character
+     * @param collapse
+     *            whether consecutive separators count as one
+     */
+    Separator(String text, boolean collapse) {
+        this.text = text;
+        this.length = text.length();
+        this.last = text.charAt(length - 1);
+        this.collapse = collapse;
+        if (length > 1) {
+            shift = new int[256];
+            Arrays.fill(shift, length);
+            for (int j = 0; j < length - 1; j++) {
+                int h = text.charAt(j) & 0xFF;
+                shift[h] = Math.min(shift[h], length - 1 - j);
+            }
+        } else {
+            shift = null;
+        }
+    }
+
+    String text() {
+        return text;
+    }
+
+    int length() {
+        return length;
+    }
+
+    boolean collapse() {
+        return collapse;
+    }
+
+    /**
+     * @return index of the first separator in <code>[from, to)</code>, or -1
+     */
+    int indexOf(CharSequence line, int from, int to) {
+        if (shift == null) {
+            return TokenList.indexOf(line, last, from, to);
+        }
+        final int end = to - length;
+        for (int i = from; i <= end;) {
+            char c = line.charAt(i + length - 1);
+            if (c == last && regionMatches(line, i)) {
+                return i;
+            }
+            i += shift[c & 0xFF];
+        }
+        return -1;
+    }
+
+    /**
+     * Whether a separator starts at <code>i</code>.
+     */
+    boolean matchesAt(CharSequence line, int i, int to) {
+        if (shift == null) {
+            return i < to && line.charAt(i) == last;
+        }
+        return i + length <= to && line.charAt(i + length - 1) == last
+                && regionMatches(line, i);
+    }
+
+    /**
+     * Returns the start of the first column, past any leading separators
+     * when they are collapsed.
+     */
+    int start(CharSequence line, int to) {
+        return collapse ? skip(line, 0, to) : 0;
+    }
+
+    /**
+     * Returns the end of the column starting at <code>from</code>, which is
+     * either the next separator or <code>to</code>.
+     */
+    int columnEnd(CharSequence line, int from, int to) {
+        int end = indexOf(line, from, to);
+        return end < 0 ? to : end;
+    }
+
+    /**
+     * Returns the start of the column after the one ending at
+     * <code>end</code>, or -1 if it is the last column of the line.
+     */
+    int nextColumn(CharSequence line, int end, int to) {
+        if (end >= to) {
+            return -1;
+        }
+        int next = end + length;
+        if (collapse) {
+            next = skip(line, next, to);
+            if (next == to) {
+                return -1;
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Returns the index past the separators that start at <code>i</code>.
+     */
+    int skip(CharSequence line, int i, int to) {
+        while (matchesAt(line, i, to)) {
+            i += length;
+        }
+        return i;
+    }
+
+    private boolean regionMatches(CharSequence line, int from) {
+        for (int j = 0; j < length - 1; j++) {
+            if (line.charAt(from + j) != text.charAt(j)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
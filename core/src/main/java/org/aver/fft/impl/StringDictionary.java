@@ -0,0 +1,93 @@
+/*
+ *  Copyright 2005 AverConsulting Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.aver.fft.impl;
+
+/**
+ * Bounded dictionary of column values, so that columns with few distinct
+ * values (state codes, record types, ...) share one <code>String</code> per
+ * value instead of creating a new one on every line. Values are looked up by
+ * the characters of their span in the line, so a value already in the
+ * dictionary costs no allocation at all.
+ * <p>
+ * The table has a fixed number of slots and a new value replaces whatever
+ * was in its slot, so the memory used is bounded whatever the column holds.
+ * Long values are never kept. Lookups take no locks and may be made from
+ * several threads; a slot written by one thread and missed by another only
+ * costs that thread a new string.
+ *
+ * @author Mathew Thomas
+ */
+final class StringDictionary {
+    /** Number of slots, a power of two. */
+    private static final int SIZE = 1024;
+
+    /** Longest value kept in the dictionary. */
+    static final int MAX_LENGTH = 64;
+
+    private final String[] values = new String[SIZE];
+
+    /**
+     * Returns the value of the span, from the dictionary when it is there.
+     *
+     * @param line
+     *            source line
+     * @param from
+     *            first character of the value
+     * @param to
+     *            end of the value, exclusive
+     */
+    String get(CharSequence line, int from, int to) {
+        int length = to - from;
+        if (length > MAX_LENGTH) {
+            return ValueConverter.substring(line, from, to);
+        }
+
+        int hash = 0;
+        for (int i = from; i < to; i++) {
+            hash = 31 * hash + line.charAt(i);
+        }
+        // the two slots of a pair are both tried, so two frequent values
+        // that hash to the same slot do not keep replacing each other
+        int slot = (hash ^ (hash >>> 16)) & (SIZE - 1);
+        String value = values[slot];
+        if (matches(value, line, from, length)) {
+            return value;
+        }
+        String other = values[slot ^ 1];
+        if (matches(other, line, from, length)) {
+            return other;
+        }
+
+        value = ValueConverter.substring(line, from, to);
+        values[other == null ? slot ^ 1 : slot] = value;
+        return value;
+    }
+
+    private static boolean matches(String value, CharSequence line, int from,
+            int length) {
+        if (value == null || value.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (value.charAt(i) != line.charAt(from + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
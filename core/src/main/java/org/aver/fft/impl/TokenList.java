@@ -0,0 +1,549 @@
+/*
+ *  Copyright 2005 AverConsulting Inc.
+ * 
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.aver.fft.impl;
+
+import java.util.Arrays;
+
+import org.aver.fft.Transformer;
+import org.aver.fft.TransformerException;
+import org.aver.fft.TransformerParseException;
+import org.aver.fft.spi.ColumnValues;
+
+/**
+ * Represents the record as a list of column spans over the source line. Each
+ * column is recorded as an (offset, length) pair in a primitive int array, so
+ * a column value is only turned into a <code>String</code> when it is asked
+ * for. Will take into consideration if the records are character separated or
+ * fixed position columns.
+ * <p>
+ * Separated columns follow RFC 4180: a column that starts with a quote runs
+ * to the closing quote, may hold separators and line breaks, and writes a
+ * quote as two quotes. Lines without a quote are split with a plain search
+ * for the separator; lines with one go through a table driven state machine.
+ * A quoted column without escapes is still a span of the line; one with
+ * escapes (or text after its closing quote) is unquoted when it is asked for.
+ * <p>
+ * An instance is not thread safe but may be reused for any number of lines by
+ * calling {@link #tokenize(CharSequence)} again.
+ *
+ * @author Mathew Thomas
+ */
+final class TokenList implements ColumnValues {
+    /** Initial number of columns the span array can hold. */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /** Marks a position in a fixed length record that has no column. */
+    private static final int NO_COLUMN = -1;
+
+    /** States of the tokenizer. */
+    static final int FIELD_START = 0;
+
+    static final int UNQUOTED = 1;
+
+    static final int QUOTED = 2;
+
+    /** A quote inside a quoted column: the closing quote or an escape. */
+    static final int QUOTE_IN_QUOTED = 3;
+
+    /** Character classes of the tokenizer. */
+    private static final int OTHER = 0;
+
+    private static final int QUOTE = 1;
+
+    private static final int SEPARATOR = 2;
+
+    /** Next state of the tokenizer, at [state * 3 + character class]. */
+    private static final byte[] NEXT = {
+            // other, quote, separator
+            UNQUOTED, QUOTED, FIELD_START, // FIELD_START
+            UNQUOTED, UNQUOTED, FIELD_START, // UNQUOTED, a quote is kept as is
+            QUOTED, QUOTE_IN_QUOTED, QUOTED, // QUOTED
+            UNQUOTED, QUOTED, FIELD_START // QUOTE_IN_QUOTED, "" is an escape
+    };
+
+    private final FlatFileTransformer transformer;
+
+    /** Format of the lines, switched per line when a file mixes types. */
+    private Record rec;
+
+    private CharSequence src;
+
+    /** Offset of column i is at spans[2 * i], its length at spans[2 * i + 1]. */
+    private int[] spans = new int[INITIAL_CAPACITY * 2];
+
+    /** Whether the span of column i is quoted text that must be unquoted. */
+    private boolean[] quoted = new boolean[INITIAL_CAPACITY];
+
+    private int size;
+
+    /**
+     * Creates a token list for records of the given format.
+     *
+     * @param transformer
+     * @param rec
+     */
+    public TokenList(FlatFileTransformer transformer, Record rec) {
+        // apply sane defaults
+        if (transformer == null) {
+            throw new TransformerException("Invalid file spec.");
+        }
+
+        if (rec == null) {
+            throw new TransformerException("Record format cannot be null.");
+        }
+
+        this.transformer = transformer;
+        this.rec = rec;
+    }
+
+    /**
+     * Tokenize the line, replacing any tokens of the previous line.
+     *
+     * @param src
+     *            line to tokenize
+     * @return this token list
+     */
+    public TokenList tokenize(CharSequence src) {
+        if (src == null) {
+            throw new TransformerException(
+                    "Source string to parse cannot be null.");
+        }
+
+        this.src = src;
+        size = 0;
+
+        // parse string into tokens as per file spec
+        parse();
+        return this;
+    }
+
+    private void parseTokens(Separator sep) {
+        final CharSequence line = src;
+        final int len = line.length();
+        if (indexOf(line, '"', 0, len) >= 0) {
+            parseQuoted(sep);
+            return;
+        }
+
+        // columns past the last loaded one are not looked for
+        final int needed = rec.columnsNeeded();
+        int i = sep.start(line, len);
+        do {
+            int end = sep.columnEnd(line, i, len);
+            add(i, end - i, false);
+            i = sep.nextColumn(line, end, len);
+        } while (i >= 0 && size < needed);
+    }
+
+    private void parseQuoted(Separator sep) {
+        final CharSequence line = src;
+        final int len = line.length();
+        final int needed = rec.columnsNeeded();
+        int state = FIELD_START;
+        int start = sep.start(line, len);
+        for (int i = start; i < len;) {
+            // a separator inside quotes is text
+            boolean separator = state != QUOTED && sep.matchesAt(line, i, len);
+            state = NEXT[state * 3 + (separator ? SEPARATOR : line.charAt(i) == '"' ? QUOTE : OTHER)];
+            if (state == FIELD_START) {
+                addField(start, i);
+                if (size >= needed) {
+                    return;
+                }
+                i = sep.collapse() ? sep.skip(line, i, len) : i + sep.length();
+                start = i;
+                if (start == len && sep.collapse()) {
+                    // trailing separators
+                    return;
+                }
+            } else {
+                i += separator ? sep.length() : 1;
+            }
+        }
+        if (state == QUOTED) {
+            throw new TransformerParseException("Quoted column " + (size + 1) + " is not closed");
+        }
+        addField(start, len);
+    }
+
+    /**
+     * Adds a column, keeping a quoted value as a span of the line when it
+     * has no escapes. Columns that are not loaded are kept as they are.
+     */
+    private void addField(int start, int end) {
+        final CharSequence line = src;
+        if (start == end || line.charAt(start) != '"' || !rec.isLoaded(size)) {
+            add(start, end - start, false);
+        } else if (end - start >= 2 && line.charAt(end - 1) == '"'
+                && indexOf(line, '"', start + 1, end - 1) < 0) {
+            add(start + 1, end - start - 2, false);
+        } else {
+            add(start, end - start, true);
+        }
+    }
+
+    /**
+     * Runs the tokenizer over part of a line without recording the columns.
+     *
+     * @param state
+     *            state at <code>from</code>, {@link #FIELD_START} at the
+     *            start of a record
+     * @return state at <code>to</code>; {@link #QUOTED} if a quoted column
+     *         is still open
+     */
+    static int scan(CharSequence line, Separator sep, int from, int to, int state) {
+        for (int i = from; i < to;) {
+            boolean separator = state != QUOTED && sep.matchesAt(line, i, to);
+            state = NEXT[state * 3 + (separator ? SEPARATOR : line.charAt(i) == '"' ? QUOTE : OTHER)];
+            i += separator ? sep.length() : 1;
+        }
+        return state;
+    }
+
+    /**
+     * Returns the end of the column that starts at <code>from</code>, where a
+     * separator inside quotes is text.
+     */
+    static int columnEnd(CharSequence line, Separator sep, int from, int to) {
+        int state = FIELD_START;
+        for (int i = from; i < to; i++) {
+            if (state != QUOTED && sep.matchesAt(line, i, to)) {
+                return i;
+            }
+            state = NEXT[state * 3 + (line.charAt(i) == '"' ? QUOTE : OTHER)];
+        }
+        return to;
+    }
+
+    /**
+     * Returns a quoted column value without its quotes and escapes.
+     */
+    static String unquote(CharSequence line, int from, int to) {
+        StringBuilder value = new StringBuilder(to - from);
+        int state = FIELD_START;
+        for (int i = from; i < to; i++) {
+            char c = line.charAt(i);
+            int next = NEXT[state * 3 + (c == '"' ? QUOTE : OTHER)];
+            // opening quotes and quotes that close or escape are dropped
+            if (next != QUOTE_IN_QUOTED && !(state == FIELD_START && next == QUOTED)) {
+                value.append(c);
+            }
+            state = next;
+        }
+        return value.toString();
+    }
+
+    /**
+     * Returns the index of the character in the range of the line, or -1.
+     * Byte lines are scanned a word at a time and strings with the JDK search,
+     * which the JIT compiles to vector instructions; other sequences are
+     * scanned a character at a time.
+     */
+    static int indexOf(CharSequence line, char c, int from, int to) {
+        if (line instanceof ByteLine bytes) {
+            return bytes.indexOf(c, from, to);
+        }
+        if (line instanceof String s) {
+            return s.indexOf(c, from, to);
+        }
+        for (int i = from; i < to; i++) {
+            if (line.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Error raised when a record has fewer columns than the format maps.
+     */
+    static TransformerParseException missingColumn(int pos, int size) {
+        return new TransformerParseException("Invalid position: " + pos + ". Maximum position is: " + size);
+    }
+
+    private void parse() {
+        switch (transformer.getColumnSeparatorType()) {
+            case CHARACTER -> parseTokens(transformer.separator());
+            case FIXLENGTH -> {
+                int srcLength = src.length();
+                for (int i : rec.indexes()) {
+                    Column col = rec.getColumnAt(i);
+                    if (col.skip()) {
+                        continue;
+                    }
+
+                    // Security: Validate column positions to prevent DoS attacks
+                    if (!isValidColumnPosition(col, srcLength)) {
+                        throw new TransformerParseException("Invalid column position - startColumn: " +
+                                col.startColumn() + ", endColumn: " + col.endColumn() +
+                                ", source length: " + srcLength);
+                    }
+
+                    set(i, col.startColumn() - 1,
+                            col.endColumn() - col.startColumn() + 1);
+                }
+            }
+            default -> throw new TransformerException("""
+                    Invalid column separator type. Only supports enums in %s"""
+                    .formatted(Transformer.ColumnSeparator.class.getName()));
+        }
+    }
+
+    private void add(int offset, int length, boolean unquote) {
+        ensureCapacity(size + 1);
+        spans[size * 2] = offset;
+        spans[size * 2 + 1] = length;
+        quoted[size] = unquote;
+        size++;
+    }
+
+    private void set(int index, int offset, int length) {
+        ensureCapacity(index + 1);
+        for (int i = size; i < index; i++) {
+            spans[i * 2] = NO_COLUMN;
+            spans[i * 2 + 1] = NO_COLUMN;
+            quoted[i] = false;
+        }
+        spans[index * 2] = offset;
+        spans[index * 2 + 1] = length;
+        quoted[index] = false;
+        size = Math.max(size, index + 1);
+    }
+
+    private void ensureCapacity(int columns) {
+        if (columns * 2 > spans.length) {
+            spans = Arrays.copyOf(spans, Math.max(columns * 2, spans.length * 2));
+            quoted = Arrays.copyOf(quoted, spans.length / 2);
+        }
+    }
+
+    /**
+     * Switches to another record format for the next lines, when a file holds
+     * several record types.
+     *
+     * @param rec
+     *            format of the next line
+     * @return this token list
+     */
+    TokenList use(Record rec) {
+        this.rec = rec;
+        return this;
+    }
+
+    /**
+     * @return record format the lines are tokenized for
+     */
+    public Record getRecord() {
+        return rec;
+    }
+
+    /**
+     * Security: Validate column positions to prevent DoS attacks
+     */
+    private boolean isValidColumnPosition(Column col, int sourceLength) {
+        if (col == null) {
+            return false;
+        }
+
+        int startColumn = col.startColumn();
+        int endColumn = col.endColumn();
+
+        // Validate start column
+        if (startColumn < 1) {
+            return false;
+        }
+
+        // Validate end column
+        if (endColumn < startColumn) {
+            return false;
+        }
+
+        // Validate against source length
+        if (startColumn - 1 >= sourceLength) {
+            return false;
+        }
+
+        if (endColumn > sourceLength) {
+            return false;
+        }
+
+        // Prevent extremely large column ranges that could cause DoS
+        if (endColumn - startColumn > 10000) {
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * @return number of columns found in the line
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the offset of the column within the line. A quoted column with
+     * escapes keeps its quotes in the span; use {@link #get(int)} for its
+     * value.
+     *
+     * @param pos
+     *            column position (starting from 1)
+     */
+    public int offset(int pos) {
+        return spans[checkPosition(pos) * 2];
+    }
+
+    /**
+     * Returns the length of the column.
+     *
+     * @param pos
+     *            column position (starting from 1)
+     */
+    public int length(int pos) {
+        return spans[checkPosition(pos) * 2 + 1];
+    }
+
+    /**
+     * Returns the column value. This is the only place a new string gets
+     * created for a column, apart from the {@link StringDictionary}.
+     *
+     * @param pos
+     *            column position (starting from 1)
+     */
+    public String get(int pos) {
+        int index = checkPosition(pos);
+        int offset = spans[index * 2];
+        int end = offset + spans[index * 2 + 1];
+        return quoted[index] ? unquote(src, offset, end)
+                : src.subSequence(offset, end).toString();
+    }
+
+    /**
+     * Returns the column value, shared through the dictionary.
+     *
+     * @param pos
+     *            column position (starting from 1)
+     * @param dictionary
+     *            dictionary of the column, or <code>null</code> for a new
+     *            string
+     */
+    String get(int pos, StringDictionary dictionary) {
+        if (dictionary == null) {
+            return get(pos);
+        }
+        int index = checkPosition(pos);
+        if (quoted[index]) {
+            String value = get(pos);
+            return dictionary.get(value, 0, value.length());
+        }
+        int offset = spans[index * 2];
+        return dictionary.get(src, offset, offset + spans[index * 2 + 1]);
+    }
+
+    @Override
+    public String getString(int pos) {
+        return get(pos, rec.getDictionaryAt(pos - 1));
+    }
+
+    @Override
+    public int getInt(int pos) {
+        int index = checkPosition(pos);
+        if (quoted[index]) {
+            return ValueConverter.toInt(get(pos));
+        }
+        int offset = spans[index * 2];
+        return ValueConverter.toInt(src, offset, offset + spans[index * 2 + 1]);
+    }
+
+    @Override
+    public long getLong(int pos) {
+        int index = checkPosition(pos);
+        if (quoted[index]) {
+            return ValueConverter.toLong(get(pos));
+        }
+        int offset = spans[index * 2];
+        return ValueConverter.toLong(src, offset, offset + spans[index * 2 + 1]);
+    }
+
+    @Override
+    public double getDouble(int pos) {
+        int index = checkPosition(pos);
+        if (quoted[index]) {
+            return ValueConverter.toDouble(get(pos));
+        }
+        int offset = spans[index * 2];
+        return ValueConverter.toDouble(src, offset, offset + spans[index * 2 + 1]);
+    }
+
+    @Override
+    public float getFloat(int pos) {
+        return ValueConverter.toFloat(get(pos));
+    }
+
+    @Override
+    public short getShort(int pos) {
+        return ValueConverter.toShort(get(pos));
+    }
+
+    @Override
+    public byte getByte(int pos) {
+        return ValueConverter.toByte(get(pos));
+    }
+
+    @Override
+    public boolean getBoolean(int pos) {
+        int index = checkPosition(pos);
+        if (quoted[index]) {
+            return ValueConverter.toBoolean(get(pos));
+        }
+        int offset = spans[index * 2];
+        return ValueConverter.toBoolean(src, offset, offset + spans[index * 2 + 1]);
+    }
+
+    @Override
+    public char getChar(int pos) {
+        return ValueConverter.toChar(get(pos));
+    }
+
+    @Override
+    public Object getObject(int pos) {
+        ValueConverter converter = rec.getConverterAt(pos - 1);
+        if (converter == null) {
+            throw new TransformerParseException("No column defined at position: " + pos);
+        }
+        return converter.convert(get(pos, rec.getDictionaryAt(pos - 1)));
+    }
+
+    private int checkPosition(int pos) {
+        // Security: Validate position to prevent DoS attacks
+        if (pos < 1) {
+            throw new TransformerParseException("Invalid position: " + pos + ". Position must be >= 1");
+        }
+
+        if (pos > size) {
+            throw missingColumn(pos, size);
+        }
+
+        int index = pos - 1;
+        if (spans[index * 2] == NO_COLUMN) {
+            throw new TransformerParseException("No column defined at position: " + pos);
+        }
+        return index;
+    }
+}
@@ -0,0 +1,370 @@
+/*
+ *  Copyright 2005 AverConsulting Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.aver.fft.impl;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+
+import org.aver.fft.TransformerException;
+import org.aver.fft.TransformerParseException;
+
+/**
+ * Converts a column value into the type of the bean property it is bound to.
+ * Converters are resolved once per column when the record format is read, so
+ * no type lookups happen while records are loaded.
+ * <p>
+ * The conversions follow the lenient rules the transformer has always had:
+ * numbers are trimmed and a value that cannot be converted becomes 0 (or
+ * <code>false</code>) instead of failing the record. The types are the ones
+ * BeanUtils converted, apart from <code>Class</code> and arrays, plus the
+ * <code>java.time</code> dates.
+ *
+ * @author Mathew Thomas
+ */
+@FunctionalInterface
+interface ValueConverter {
+    /**
+     * Converts the column value.
+     *
+     * @param value
+     *            column value as read from the record
+     * @return value to set on the bean
+     * @throws TransformerParseException
+     *             if the value cannot be converted
+     */
+    Object convert(String value);
+
+    /**
+     * Returns the converter for a bean property of the given type.
+     *
+     * @param col
+     *            column the property is bound to
+     * @param type
+     *            property type
+     * @throws TransformerException
+     *             if the type is not supported
+     */
+    static ValueConverter forType(Column col, Class<?> type) {
+        if (type == String.class || type == Object.class
+                || type == CharSequence.class) {
+            return value -> value;
+        }
+        if (type == int.class || type == Integer.class) {
+            return value -> toInt(value);
+        }
+        if (type == long.class || type == Long.class) {
+            return value -> toLong(value);
+        }
+        if (type == double.class || type == Double.class) {
+            return value -> toDouble(value);
+        }
+        if (type == float.class || type == Float.class) {
+            return value -> toFloat(value);
+        }
+        if (type == short.class || type == Short.class) {
+            return value -> toShort(value);
+        }
+        if (type == byte.class || type == Byte.class) {
+            return value -> toByte(value);
+        }
+        if (type == boolean.class || type == Boolean.class) {
+            return value -> toBoolean(value);
+        }
+        if (type == char.class || type == Character.class) {
+            return value -> toChar(value);
+        }
+        if (type == BigDecimal.class) {
+            return value -> {
+                try {
+                    return new BigDecimal(value.trim());
+                } catch (NumberFormatException e) {
+                    return BigDecimal.ZERO;
+                }
+            };
+        }
+        if (type == BigInteger.class) {
+            return value -> {
+                try {
+                    return new BigInteger(value.trim());
+                } catch (NumberFormatException e) {
+                    return BigInteger.ZERO;
+                }
+            };
+        }
+        if (type == Date.class || type == LocalDate.class
+                || type == LocalDateTime.class || type == Instant.class) {
+            return DateParser.compile(col, type)::parse;
+        }
+        if (type == java.sql.Date.class) {
+            return sqlDate(col, java.sql.Date::valueOf, java.sql.Date::new);
+        }
+        if (type == Time.class) {
+            return sqlDate(col, Time::valueOf, Time::new);
+        }
+        if (type == Timestamp.class) {
+            return sqlDate(col, Timestamp::valueOf, Timestamp::new);
+        }
+        if (type == Calendar.class) {
+            DateParser parser = DateParser.compile(col, Date.class);
+            return value -> {
+                Calendar calendar = Calendar.getInstance();
+                calendar.setTime((Date) parser.parse(value));
+                return calendar;
+            };
+        }
+        if (type == File.class) {
+            return File::new;
+        }
+        if (type == URL.class) {
+            return value -> {
+                try {
+                    return URI.create(value.trim()).toURL();
+                } catch (IllegalArgumentException | MalformedURLException e) {
+                    throw new TransformerParseException(e);
+                }
+            };
+        }
+        throw new TransformerException("Unsupported type " + type.getName()
+                + " for column " + col.name());
+    }
+
+    /**
+     * Converter for a <code>java.sql</code> date type: read with the column
+     * format when it has one, otherwise in the JDBC escape format of the
+     * type, such as <code>yyyy-mm-dd</code> for <code>java.sql.Date</code>.
+     */
+    private static ValueConverter sqlDate(Column col,
+            Function<String, Date> valueOf,
+            LongFunction<Date> ofMillis) {
+        if (col.dateFormat() != null && !col.dateFormat().isEmpty()) {
+            DateParser parser = DateParser.compile(col, Date.class);
+            return value -> ofMillis.apply(((Date) parser.parse(value)).getTime());
+        }
+        return value -> {
+            try {
+                return valueOf.apply(value.trim());
+            } catch (IllegalArgumentException e) {
+                throw new TransformerParseException(e);
+            }
+        };
+    }
+
+    // lenient conversions shared by the converters above and by TokenList
+
+    static int toInt(String value) {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    static long toLong(String value) {
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+
+    static double toDouble(String value) {
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            return 0d;
+        }
+    }
+
+    static float toFloat(String value) {
+        try {
+            return Float.parseFloat(value.trim());
+        } catch (NumberFormatException e) {
+            return 0f;
+        }
+    }
+
+    static short toShort(String value) {
+        try {
+            return Short.parseShort(value.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    static byte toByte(String value) {
+        try {
+            return Byte.parseByte(value.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    static boolean toBoolean(String value) {
+        return switch (value.trim().toLowerCase()) {
+            case "true", "yes", "y", "on", "1" -> true;
+            default -> false;
+        };
+    }
+
+    static char toChar(String value) {
+        return value.isEmpty() ? ' ' : value.charAt(0);
+    }
+
+    // the same conversions straight from a span of the line, without
+    // creating a string; forms the fast paths do not cover (exponents,
+    // non-ASCII digits, ...) fall back to the string conversions above
+
+    /** Powers of ten that are exact as doubles. */
+    double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8,
+            1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19,
+            1e20, 1e21, 1e22 };
+
+    static String substring(CharSequence line, int from, int to) {
+        return line.subSequence(from, to).toString();
+    }
+
+    static int toInt(CharSequence line, int from, int to) {
+        long value = toLong(line, from, to);
+        return value == (int) value ? (int) value : 0;
+    }
+
+    static long toLong(CharSequence line, int from, int to) {
+        // trimmed as String.trim() does
+        while (from < to && line.charAt(from) <= ' ') {
+            from++;
+        }
+        while (to > from && line.charAt(to - 1) <= ' ') {
+            to--;
+        }
+        if (from == to) {
+            return 0L;
+        }
+
+        int i = from;
+        char first = line.charAt(i);
+        boolean negative = first == '-';
+        if (negative || first == '+') {
+            if (++i == to) {
+                return 0L;
+            }
+        }
+
+        // accumulated negatively, like Long.parseLong, to reach MIN_VALUE
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long result = 0;
+        for (; i < to; i++) {
+            int digit = line.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return toLong(line.subSequence(from, to).toString());
+            }
+            if (result < limit / 10) {
+                return 0L;
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                return 0L;
+            }
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+
+    static double toDouble(CharSequence line, int from, int to) {
+        while (from < to && line.charAt(from) <= ' ') {
+            from++;
+        }
+        while (to > from && line.charAt(to - 1) <= ' ') {
+            to--;
+        }
+
+        // [sign] digits [. digits] with a mantissa below 2^53 and at most 22
+        // decimals: both operands of the division are exact, so the result
+        // is correctly rounded, as Double.parseDouble would return
+        int i = from;
+        boolean negative = i < to && line.charAt(i) == '-';
+        if (i < to && (negative || line.charAt(i) == '+')) {
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int decimals = -1;
+        for (; i < to; i++) {
+            char c = line.charAt(i);
+            if (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (decimals >= 0) {
+                    decimals++;
+                }
+                if (mantissa >= 1L << 53) {
+                    break;
+                }
+            } else if (c == '.' && decimals < 0) {
+                decimals = 0;
+            } else {
+                break;
+            }
+        }
+        if (i < to || digits == 0 || decimals >= POWERS_OF_TEN.length) {
+            return toDouble(line.subSequence(from, to).toString());
+        }
+        double value = decimals > 0 ? mantissa / POWERS_OF_TEN[decimals] : mantissa;
+        return negative ? -value : value;
+    }
+
+    static boolean toBoolean(CharSequence line, int from, int to) {
+        while (from < to && line.charAt(from) <= ' ') {
+            from++;
+        }
+        while (to > from && line.charAt(to - 1) <= ' ') {
+            to--;
+        }
+        return switch (to - from) {
+            case 1 -> {
+                char c = Character.toLowerCase(line.charAt(from));
+                yield c == 'y' || c == '1';
+            }
+            case 2 -> matches(line, from, "on");
+            case 3 -> matches(line, from, "yes");
+            case 4 -> matches(line, from, "true");
+            default -> false;
+        };
+    }
+
+    private static boolean matches(CharSequence line, int from, String word) {
+        for (int i = 0; i < word.length(); i++) {
+            if (Character.toLowerCase(line.charAt(from + i)) != word.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ *  Copyright 2005 AverConsulting Inc.
+ * 
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.aver.fft.spi;
+
+/**
+ * The attributes of one <code>@Column</code> annotation, as captured by a
+ * generated {@link RecordBinder}.
+ * 
+ * @param name
+ *            bean property name
+ * @param type
+ *            bean property type
+ * @param position
+ *            column position in the record (starting from 1)
+ * @param required
+ *            is the column required
+ * @param format
+ *            date format string
+ * @param skip
+ *            should this column be skipped while parsing
+ * @param start
+ *            first character of a fixed length column (starting from 1)
+ * @param end
+ *            last character of a fixed length column
+ * @param dedupe
+ *            share the strings of repeated values
+ * @author Mathew Thomas
+ */
+public record ColumnDefinition(
+    String name,
+    Class<?> type,
+    int position,
+    boolean required,
+    String format,
+    boolean skip,
+    int start,
+    int end,
+    boolean dedupe
+) {
+    /**
+     * Column without dedupe, as written by binders generated before the
+     * attribute existed.
+     */
+    public ColumnDefinition(String name, Class<?> type, int position,
+            boolean required, String format, boolean skip, int start, int end) {
+        this(name, type, position, required, format, skip, start, end, false);
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ *  Copyright 2005 AverConsulting Inc.
+ * 
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.aver.fft.spi;
+
+/**
+ * Column values of the record being loaded, converted with the same rules the
+ * transformer applies to every bean: numbers are trimmed and a value that
+ * cannot be converted becomes 0 (or <code>false</code>).
+ * <p>
+ * Positions start from 1. Asking for a position the record does not have
+ * throws a <code>TransformerParseException</code>.
+ * 
+ * @author Mathew Thomas
+ */
+public interface ColumnValues {
+    String getString(int position);
+
+    int getInt(int position);
+
+    long getLong(int position);
+
+    double getDouble(int position);
+
+    float getFloat(int position);
+
+    short getShort(int position);
+
+    byte getByte(int position);
+
+    boolean getBoolean(int position);
+
+    char getChar(int position);
+
+    /**
+     * Returns the column converted to the type of its
+     * {@link ColumnDefinition}, for types without a primitive getter such as
+     * <code>java.util.Date</code> or <code>java.math.BigDecimal</code>.
+     */
+    Object getObject(int position);
+}
@@ -0,0 +1,70 @@
+/*
+ *  Copyright 2005 AverConsulting Inc.
+ * 
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.aver.fft.spi;
+
+import java.util.List;
+
+/**
+ * Loads records into one <code>@Transform</code> bean class without
+ * reflection. Implementations are generated at build time by the
+ * flatfilereader-processor annotation processor and registered as
+ * <code>META-INF/services/org.aver.fft.spi.RecordBinder</code>; the
+ * <code>TransformerFactory</code> picks them up through
+ * {@link java.util.ServiceLoader} and then no longer reads the
+ * <code>@Column</code> annotations or resolves setters at runtime.
+ * 
+ * @author Mathew Thomas
+ */
+public interface RecordBinder {
+    /**
+     * @return the bean class this binder loads
+     */
+    Class<?> getBeanClass();
+
+    /**
+     * @return the columns declared on the bean class, including skipped ones
+     */
+    List<ColumnDefinition> getColumns();
+
+    /**
+     * @return the <code>@Transform</code> attributes of the bean class, or
+     *         <code>null</code> for binders generated before this method
+     *         existed, in which case the annotation is read from the class
+     */
+    default TransformDefinition getTransform() {
+        return null;
+    }
+
+    /**
+     * Creates a new bean using its default constructor.
+     * 
+     * @return the new bean, or <code>null</code> if the bean class has no
+     *         accessible default constructor
+     */
+    Object newBean();
+
+    /**
+     * Copies the column values of one record into the bean.
+     * 
+     * @param bean
+     *            bean to load
+     * @param values
+     *            column values of the record
+     */
+    void bind(Object bean, ColumnValues values);
+}
@@ -0,0 +1,63 @@
+/*
+ *  Copyright 2005 AverConsulting Inc.
+ * 
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.aver.fft.spi;
+
+import org.aver.fft.Transformer;
+
+/**
+ * The attributes of the <code>@Transform</code> annotation of a bean class,
+ * as captured by a generated {@link RecordBinder}.
+ * 
+ * @param columnSeparatorType
+ *            delimited or fixed length columns
+ * @param columnSeparator
+ *            separator of delimited columns
+ * @param collapseSeparators
+ *            count a run of separators as one
+ * @param beanCreator
+ *            class name of the bean factory
+ * @param skipFirstLine
+ *            is the first line a header
+ * @param charset
+ *            charset of the files, empty for the platform default
+ * @param maxLineLength
+ *            longest line accepted, zero or less for no limit
+ * @param maxLines
+ *            most lines read from a file, zero or less for no limit
+ * @param maxFileSize
+ *            largest file accepted, zero or less for no limit
+ * @param recordIdentifier
+ *            value that marks the lines of this class
+ * @param recordIdentifierColumn
+ *            where the record identifier is found
+ * @author Mathew Thomas
+ */
+public record TransformDefinition(
+    Transformer.ColumnSeparator columnSeparatorType,
+    String columnSeparator,
+    boolean collapseSeparators,
+    String beanCreator,
+    boolean skipFirstLine,
+    String charset,
+    int maxLineLength,
+    long maxLines,
+    long maxFileSize,
+    String recordIdentifier,
+    int recordIdentifierColumn
+) {
+}
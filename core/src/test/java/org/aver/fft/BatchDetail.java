@@ -0,0 +1,37 @@
+package org.aver.fft;
+
+import java.math.BigDecimal;
+
+import org.aver.fft.annotations.Column;
+import org.aver.fft.annotations.Transform;
+
+/**
+ * Detail record of a comma delimited batch file, marked by "D" in the first
+ * column.
+ * 
+ * @author Mathew Thomas
+ */
+@Transform(columnSeparator = ",", recordIdentifier = "D")
+public class BatchDetail {
+    private String account;
+
+    private BigDecimal amount;
+
+    @Column(position = 2, required = true)
+    public String getAccount() {
+        return account;
+    }
+
+    public void setAccount(String account) {
+        this.account = account;
+    }
+
+    @Column(position = 3, required = true)
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+}
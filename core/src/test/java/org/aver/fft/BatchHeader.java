@@ -0,0 +1,35 @@
+package org.aver.fft;
+
+import org.aver.fft.annotations.Column;
+import org.aver.fft.annotations.Transform;
+
+/**
+ * Header record of a comma delimited batch file, marked by "H" in the first
+ * column.
+ * 
+ * @author Mathew Thomas
+ */
+@Transform(columnSeparator = ",", recordIdentifier = "H")
+public class BatchHeader {
+    private String batchId;
+
+    private String bank;
+
+    @Column(position = 2, required = true)
+    public String getBatchId() {
+        return batchId;
+    }
+
+    public void setBatchId(String batchId) {
+        this.batchId = batchId;
+    }
+
+    @Column(position = 3, required = true)
+    public String getBank() {
+        return bank;
+    }
+
+    public void setBank(String bank) {
+        this.bank = bank;
+    }
+}
@@ -0,0 +1,125 @@
+package org.aver.fft;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Records delivered to a listener in batches.
+ * 
+ * @author Mathew Thomas
+ */
+public class BatchRecordListenerTestCase {
+    private static final int LINES = 2500;
+
+    @TempDir
+    Path dir;
+
+    private String text;
+
+    private File file;
+
+    private Transformer spec;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 1; i <= LINES; i++) {
+            if (i % 100 == 0) {
+                sb.append("bad record ").append(i).append('\n');
+            } else {
+                sb.append("Name_").append(i).append(" 4111111111111111 02 2008 12.89 222 10212005\n");
+            }
+        }
+        text = sb.toString();
+        file = Files.writeString(dir.resolve("batch.txt"), text, StandardCharsets.US_ASCII).toFile();
+        spec = TransformerFactory.getTransformer(DelimitedBean.class);
+    }
+
+    @Test
+    void testBatches() {
+        Collector collector = new Collector(Integer.MAX_VALUE);
+        spec.parseFlatFile(file, collector, ParseOptions.defaults().withBatchSize(1000));
+
+        assertEquals(List.of(1000, 1000, 500), collector.batchSizes);
+        assertEquals(LINES - LINES / 100, collector.records.size());
+        assertEquals(LINES / 100, collector.unresolved.size());
+        assertEquals("1:Name_1", collector.records.get(0));
+        assertEquals("2499:Name_2499", collector.records.get(collector.records.size() - 1));
+        assertEquals("100:bad record 100", collector.unresolved.get(0));
+    }
+
+    @Test
+    void testSameResultsInAllModes() {
+        Collector sequential = new Collector(Integer.MAX_VALUE);
+        spec.parseFlatFile(file, sequential, ParseOptions.defaults().withBatchSize(64));
+
+        Collector stream = new Collector(Integer.MAX_VALUE);
+        spec.parseFlatFile(new ByteArrayInputStream(text.getBytes(StandardCharsets.US_ASCII)),
+                stream, ParseOptions.defaults().withBatchSize(64));
+        Collector mapped = new Collector(Integer.MAX_VALUE);
+        spec.parseFlatFile(file, mapped, ParseOptions.defaults().withBatchSize(64)
+                .withMemoryMapped(true));
+        Collector parallel = new Collector(Integer.MAX_VALUE);
+        spec.parseFlatFile(file, parallel, ParseOptions.defaults().withBatchSize(64)
+                .withParallelism(3));
+
+        for (Collector other : List.of(stream, mapped, parallel)) {
+            assertEquals(sequential.records, other.records);
+            assertEquals(sequential.unresolved, other.unresolved);
+            assertEquals(sequential.batchSizes, other.batchSizes);
+        }
+    }
+
+    @Test
+    void testAbort() {
+        Collector collector = new Collector(1);
+        spec.parseFlatFile(file, collector, ParseOptions.defaults().withBatchSize(1000));
+
+        assertEquals(List.of(1000), collector.batchSizes);
+    }
+
+    static class Collector implements BatchRecordListener {
+        final List<Integer> batchSizes = new ArrayList<>();
+
+        final List<String> records = new ArrayList<>();
+
+        final List<String> unresolved = new ArrayList<>();
+
+        final int stopAfter;
+
+        RecordBatch previous;
+
+        Collector(int stopAfter) {
+            this.stopAfter = stopAfter;
+        }
+
+        @Override
+        public boolean foundRecords(RecordBatch batch) {
+            assertTrue(previous == null || previous == batch, "batch is reused");
+            previous = batch;
+
+            batchSizes.add(batch.size() + batch.unresolvedSize());
+            for (int i = 0; i < batch.size(); i++) {
+                records.add(batch.getLineNumber(i) + ":"
+                        + ((DelimitedBean) batch.getRecord(i)).getNameOnCard());
+            }
+            for (int i = 0; i < batch.unresolvedSize(); i++) {
+                unresolved.add(batch.getUnresolvedLineNumber(i) + ":"
+                        + batch.getUnresolvedLine(i));
+            }
+            assertEquals(batch.size(), batch.getRecords().size());
+            return batchSizes.size() < stopAfter;
+        }
+    }
+}
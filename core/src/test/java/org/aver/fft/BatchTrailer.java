@@ -0,0 +1,37 @@
+package org.aver.fft;
+
+import java.math.BigDecimal;
+
+import org.aver.fft.annotations.Column;
+import org.aver.fft.annotations.Transform;
+
+/**
+ * Trailer record of a comma delimited batch file, marked by "T" in the first
+ * column, with the number of detail records and their total amount.
+ * 
+ * @author Mathew Thomas
+ */
+@Transform(columnSeparator = ",", recordIdentifier = "T")
+public class BatchTrailer {
+    private int count;
+
+    private BigDecimal total;
+
+    @Column(position = 2, required = true)
+    public int getCount() {
+        return count;
+    }
+
+    public void setCount(int count) {
+        this.count = count;
+    }
+
+    @Column(position = 3, required = true)
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    public void setTotal(BigDecimal total) {
+        this.total = total;
+    }
+}
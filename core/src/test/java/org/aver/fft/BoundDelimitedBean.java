@@ -0,0 +1,13 @@
+package org.aver.fft;
+
+import org.aver.fft.annotations.Transform;
+
+/**
+ * Same record format as {@link DelimitedBean}, loaded by the record binder
+ * {@link BoundDelimitedBean_RecordBinder}.
+ * 
+ * @author Mathew Thomas
+ */
+@Transform
+public class BoundDelimitedBean extends DelimitedBean {
+}
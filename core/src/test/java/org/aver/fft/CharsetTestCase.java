@@ -0,0 +1,124 @@
+package org.aver.fft;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.aver.fft.annotations.Column;
+import org.aver.fft.annotations.Transform;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Files read in the charset of the bean.
+ * 
+ * @author Mathew Thomas
+ */
+public class CharsetTestCase {
+    private static final String TEXT = "Zoë,Malmö\nJosé,São Paulo\nAnn,Oslo\n";
+
+    private static final List<String> PEOPLE = List.of("Zoë Malmö", "José São Paulo", "Ann Oslo");
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testCharsets() throws IOException {
+        check(Utf8Person.class, StandardCharsets.UTF_8);
+        check(Latin1Person.class, StandardCharsets.ISO_8859_1);
+        check(Utf16Person.class, StandardCharsets.UTF_16);
+    }
+
+    @Test
+    void testUnsupported() throws IOException {
+        assertThrows(TransformerException.class,
+                () -> TransformerFactory.getTransformer(UnknownCharsetPerson.class));
+
+        File file = Files.write(dir.resolve("utf16.txt"), TEXT.getBytes(StandardCharsets.UTF_16)).toFile();
+        Transformer spec = TransformerFactory.getTransformer(Utf16Person.class);
+        assertThrows(TransformerException.class, () -> spec.parseFlatFile(file, new Listener(),
+                ParseOptions.defaults().withMemoryMapped(true)));
+    }
+
+    private void check(Class<? extends Person> type, Charset charset) throws IOException {
+        Transformer spec = TransformerFactory.getTransformer(type);
+        byte[] bytes = TEXT.getBytes(charset);
+        File file = Files.write(dir.resolve(type.getSimpleName() + ".txt"), bytes).toFile();
+
+        Listener listener = new Listener();
+        spec.parseFlatFile(new ByteArrayInputStream(bytes), listener);
+        assertEquals(PEOPLE, listener.people, type.getSimpleName());
+
+        List<ParseOptions> options = new ArrayList<>(List.of(ParseOptions.defaults(),
+                ParseOptions.defaults().withPipelined(true).withParallelism(2)));
+        if (charset != StandardCharsets.UTF_16) {
+            options.add(ParseOptions.defaults().withMemoryMapped(true));
+            options.add(ParseOptions.defaults().withParallelism(2));
+        }
+        for (ParseOptions option : options) {
+            listener = new Listener();
+            spec.parseFlatFile(file, listener, option);
+            assertEquals(PEOPLE, listener.people, type.getSimpleName() + " " + option);
+        }
+    }
+
+    private static final class Listener implements RecordListener {
+        final List<String> people = new ArrayList<>();
+
+        public boolean foundRecord(Object o) {
+            Person person = (Person) o;
+            return people.add(person.getName() + " " + person.getCity());
+        }
+
+        public boolean unresolvableRecord(String rec) {
+            return false;
+        }
+    }
+
+    public static class Person {
+        private String name;
+
+        private String city;
+
+        @Column(position = 1)
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        @Column(position = 2)
+        public String getCity() {
+            return city;
+        }
+
+        public void setCity(String city) {
+            this.city = city;
+        }
+    }
+
+    @Transform(columnSeparator = ",", charset = "UTF-8")
+    public static class Utf8Person extends Person {
+    }
+
+    @Transform(columnSeparator = ",", charset = "ISO-8859-1")
+    public static class Latin1Person extends Person {
+    }
+
+    @Transform(columnSeparator = ",", charset = "UTF-16")
+    public static class Utf16Person extends Person {
+    }
+
+    @Transform(columnSeparator = ",", charset = "no-such-charset")
+    public static class UnknownCharsetPerson extends Person {
+    }
+}
@@ -0,0 +1,52 @@
+package org.aver.fft;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Bean creation through the default bean factory.
+ * 
+ * @author Mathew Thomas
+ */
+public class DefaultBeanCreatorTestCase {
+    private final DefaultBeanCreator creator = new DefaultBeanCreator();
+
+    public static class NoDefaultConstructor {
+        public NoDefaultConstructor(String value) {
+        }
+    }
+
+    @Test
+    void testCreateBean() {
+        Object byClass = creator.createBean(DelimitedBean.class);
+        Object byName = creator.createBean(DelimitedBean.class.getName());
+
+        assertInstanceOf(DelimitedBean.class, byClass);
+        assertInstanceOf(DelimitedBean.class, byName);
+        assertNotSame(byClass, byName);
+        assertNotSame(byName, creator.createBean(DelimitedBean.class.getName()));
+    }
+
+    @Test
+    void testBlacklistedClass() {
+        assertThrows(TransformerException.class, () -> {
+            creator.createBean("java.lang.ProcessBuilder");
+        });
+        assertThrows(TransformerException.class, () -> {
+            creator.createBean(Thread.class);
+        });
+    }
+
+    @Test
+    void testInvalidClass() {
+        assertThrows(TransformerException.class, () -> {
+            creator.createBean("org.aver.fft.NoSuchBean");
+        });
+        assertThrows(TransformerException.class, () -> {
+            creator.createBean(NoDefaultConstructor.class);
+        });
+        assertThrows(TransformerException.class, () -> {
+            creator.createBean(" ");
+        });
+    }
+}
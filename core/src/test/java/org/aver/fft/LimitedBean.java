@@ -0,0 +1,12 @@
+package org.aver.fft;
+
+import org.aver.fft.annotations.Transform;
+
+/**
+ * Same record format as {@link DelimitedBean}, with small parsing limits.
+ * 
+ * @author Mathew Thomas
+ */
+@Transform(maxLineLength = 100, maxLines = 5, maxFileSize = 1000)
+public class LimitedBean extends DelimitedBean {
+}
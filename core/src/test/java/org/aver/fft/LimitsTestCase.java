@@ -0,0 +1,115 @@
+package org.aver.fft;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Parsing limits configured on the @Transform annotation.
+ * 
+ * @author Mathew Thomas
+ */
+public class LimitsTestCase {
+    private static final String RECORD = "Mathew_Thomas 4111111111111111 02 2008 12.89 222 10212005\n";
+
+    private static final ParseOptions[] MODES = { ParseOptions.defaults(),
+            ParseOptions.defaults().withMemoryMapped(true),
+            ParseOptions.defaults().withParallelism(2) };
+
+    @TempDir
+    Path dir;
+
+    private final Transformer spec = TransformerFactory.getTransformer(LimitedBean.class);
+
+    @Test
+    void testLineLength() {
+        assertNotNull(spec.loadRecord(RECORD.trim()));
+        assertThrows(TransformerLimitException.class, () -> {
+            spec.loadRecord(RECORD.trim() + " " + "x".repeat(100));
+        });
+    }
+
+    @Test
+    void testLineLengthInFile() throws IOException {
+        File file = write(RECORD + RECORD.trim() + " " + "x".repeat(100) + "\n" + RECORD);
+        for (ParseOptions options : MODES) {
+            Counter counter = new Counter();
+            TransformerLimitException e = assertThrows(TransformerLimitException.class, () -> {
+                spec.parseFlatFile(file, counter, options);
+            });
+            assertTrue(e.getMessage().contains("Line 2"), e.getMessage());
+            assertEquals(1, counter.records);
+        }
+    }
+
+    @Test
+    void testMaxLines() throws IOException {
+        File file = write(RECORD.repeat(6));
+        for (ParseOptions options : MODES) {
+            Counter counter = new Counter();
+            assertThrows(TransformerLimitException.class, () -> {
+                spec.parseFlatFile(file, counter, options);
+            });
+            assertEquals(5, counter.records);
+        }
+
+        Counter counter = new Counter();
+        spec.parseFlatFile(write(RECORD.repeat(5)), counter);
+        assertEquals(5, counter.records);
+
+        assertThrows(TransformerLimitException.class, () -> {
+            spec.parseFlatFile(new ByteArrayInputStream(RECORD.repeat(6)
+                    .getBytes(StandardCharsets.US_ASCII)), new Counter());
+        });
+    }
+
+    @Test
+    void testMaxFileSize() throws IOException {
+        File file = write(RECORD.repeat(20));
+        Counter counter = new Counter();
+        assertThrows(TransformerLimitException.class, () -> {
+            spec.parseFlatFile(file, counter);
+        });
+        assertEquals(0, counter.records);
+    }
+
+    @Test
+    void testDefaultsAllowLongLines() throws IOException {
+        String name = "N".repeat(60000);
+        File file = write(RECORD + RECORD.replace("Mathew_Thomas", name));
+        Counter counter = new Counter();
+        TransformerFactory.getTransformer(DelimitedBean.class).parseFlatFile(file, counter);
+        assertEquals(2, counter.records);
+        assertEquals(0, counter.unresolved);
+    }
+
+    private File write(String text) throws IOException {
+        return Files.writeString(Files.createTempFile(dir, "limits", ".txt"), text,
+                StandardCharsets.US_ASCII).toFile();
+    }
+
+    static class Counter implements RecordListener {
+        int records;
+
+        int unresolved;
+
+        @Override
+        public boolean foundRecord(Object o) {
+            records++;
+            return true;
+        }
+
+        @Override
+        public boolean unresolvableRecord(String rec) {
+            unresolved++;
+            return true;
+        }
+    }
+}
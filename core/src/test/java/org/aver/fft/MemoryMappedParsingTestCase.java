@@ -0,0 +1,120 @@
+package org.aver.fft;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Files read through a memory mapping give the same records as files read
+ * through a reader.
+ * 
+ * @author Mathew Thomas
+ */
+public class MemoryMappedParsingTestCase {
+    private static final ParseOptions MAPPED = ParseOptions.defaults()
+            .withMemoryMapped(true);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testDelimitedFile() throws Exception {
+        Transformer spec = TransformerFactory.getTransformer(DelimitedBean.class);
+        File file = resource("multi-record-delcol-file.txt");
+
+        Listener mapped = new Listener();
+        spec.parseFlatFile(file, mapped, MAPPED);
+        Listener read = new Listener();
+        spec.parseFlatFile(file, read);
+
+        assertEquals(2, mapped.records.size());
+        assertEquals(read.records, mapped.records);
+        assertEquals(read.unresolved, mapped.unresolved);
+    }
+
+    @Test
+    void testFixedColumnFile() throws Exception {
+        Transformer spec = TransformerFactory.getTransformer(FixedColBean.class);
+        File file = resource("multi-record-fixedcol-file.txt");
+
+        Listener mapped = new Listener();
+        spec.parseFlatFile(file, mapped, MAPPED);
+        Listener read = new Listener();
+        spec.parseFlatFile(file, read);
+
+        assertFalse(mapped.records.isEmpty());
+        assertEquals(read.records, mapped.records);
+    }
+
+    @Test
+    void testLineEndingsAndNonAsciiText() throws IOException {
+        Path file = dir.resolve("mixed.txt");
+        Files.writeString(file, "Mathew_Thomas 4111111111111111 02 2008 12.89 222 10212005\r\n"
+                + "José_García 4111111111111112 03 2009 1.50 333 10212005\n"
+                + "bad record\r"
+                + "\"Thomas Mathew\" 4111111111111113 04 2010 7.25 444 10212005",
+                StandardCharsets.UTF_8);
+        Transformer spec = TransformerFactory.getTransformer(DelimitedBean.class);
+
+        Listener mapped = new Listener();
+        spec.parseFlatFile(file.toFile(), mapped, MAPPED);
+        Listener read = new Listener();
+        spec.parseFlatFile(file.toFile(), read);
+
+        assertEquals(List.of("Mathew_Thomas|4111111111111111|2|12.89|222",
+                "José_García|4111111111111112|3|1.5|333",
+                "Thomas Mathew|4111111111111113|4|7.25|444"), mapped.records);
+        assertEquals(List.of("bad record"), mapped.unresolved);
+        assertEquals(read.records, mapped.records);
+    }
+
+    @Test
+    void testEmptyFile() throws IOException {
+        Path file = Files.createFile(dir.resolve("empty.txt"));
+        Listener mapped = new Listener();
+        TransformerFactory.getTransformer(DelimitedBean.class)
+                .parseFlatFile(file.toFile(), mapped, MAPPED);
+        assertTrue(mapped.records.isEmpty());
+        assertTrue(mapped.unresolved.isEmpty());
+    }
+
+    private static File resource(String name) throws URISyntaxException {
+        return new File(MemoryMappedParsingTestCase.class.getResource(name).toURI());
+    }
+
+    static class Listener implements RecordListener {
+        final List<String> records = new ArrayList<>();
+
+        final List<String> unresolved = new ArrayList<>();
+
+        @Override
+        public boolean foundRecord(Object o) {
+            if (o instanceof DelimitedBean bean) {
+                records.add(bean.getNameOnCard() + "|" + bean.getCardNumber() + "|"
+                        + bean.getExpMonth() + "|" + bean.getAmount() + "|"
+                        + bean.getCardSecurityCode());
+            } else {
+                FixedColBean bean = (FixedColBean) o;
+                records.add(bean.getNameOnCard() + "|" + bean.getCardNumber() + "|"
+                        + bean.getExpMonth() + "|" + bean.getAmount() + "|"
+                        + bean.getCardSecurityCode());
+            }
+            return true;
+        }
+
+        @Override
+        public boolean unresolvableRecord(String rec) {
+            unresolved.add(rec);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package org.aver.fft;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Several files parsed at once.
+ * 
+ * @author Mathew Thomas
+ */
+public class MultiFileTestCase {
+    private static final int FILES = 20;
+
+    private static final int LINES = 50;
+
+    @TempDir
+    Path dir;
+
+    private List<Path> files;
+
+    private Transformer spec;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        files = new ArrayList<>();
+        for (int f = 0; f < FILES; f++) {
+            StringBuilder text = new StringBuilder();
+            for (int i = 1; i <= LINES; i++) {
+                if (i == 10) {
+                    text.append("bad record\n");
+                } else {
+                    text.append("File").append(f).append("_").append(i)
+                            .append(" 4111111111111111 02 2008 12.89 222 10212005\n");
+                }
+            }
+            files.add(Files.writeString(dir.resolve(String.format("partner-%02d.txt", f)),
+                    text, StandardCharsets.US_ASCII));
+        }
+        Files.writeString(dir.resolve("other.csv"), "not a partner file\n");
+        spec = TransformerFactory.getTransformer(DelimitedBean.class);
+    }
+
+    @Test
+    void testParseFiles() {
+        Listener listener = new Listener(3);
+        List<FileResult> results = spec.parseFlatFiles(files, listener, 3);
+
+        assertEquals(FILES, results.size());
+        for (int f = 0; f < FILES; f++) {
+            FileResult result = results.get(f);
+            assertEquals(files.get(f), result.file());
+            assertTrue(result.succeeded());
+            assertEquals(LINES - 1, result.records());
+            assertEquals(1, result.unresolved());
+            assertFalse(result.stopped());
+        }
+        assertEquals(FILES * LINES, listener.records.size());
+        assertEquals("File7_3", listener.records.get(files.get(7) + ":3"));
+        assertEquals("bad record", listener.records.get(files.get(7) + ":10"));
+        assertEquals(FILES, listener.completed.get());
+        assertTrue(listener.maxOpen.get() <= 3);
+    }
+
+    @Test
+    void testGlobAndFailures() throws IOException {
+        Files.writeString(dir.resolve("partner-99.txt"), "x".repeat(200_000));
+
+        Listener listener = new Listener(Integer.MAX_VALUE);
+        List<FileResult> results = spec.parseFlatFiles(dir, "partner-*.txt", listener, 4);
+
+        assertEquals(FILES + 1, results.size());
+        assertEquals(files, results.subList(0, FILES).stream().map(FileResult::file).toList());
+        FileResult failed = results.get(FILES);
+        assertFalse(failed.succeeded());
+        assertInstanceOf(TransformerLimitException.class, failed.failure());
+        assertEquals(FILES + 1, listener.completed.get());
+    }
+
+    @Test
+    void testStopOneFile() {
+        Listener listener = new Listener(Integer.MAX_VALUE) {
+            @Override
+            public boolean foundRecord(Path file, long lineNumber, Object bean) {
+                super.foundRecord(file, lineNumber, bean);
+                return !file.equals(files.get(0)) || lineNumber < 5;
+            }
+        };
+        List<FileResult> results = spec.parseFlatFiles(files, listener, 2);
+
+        assertTrue(results.get(0).stopped());
+        assertEquals(5, results.get(0).records());
+        assertFalse(results.get(1).stopped());
+        assertEquals(LINES - 1, results.get(1).records());
+    }
+
+    @Test
+    void testOptionsApplyToEachFile() {
+        Map<Path, Set<Object>> beans = new ConcurrentHashMap<>();
+        Listener listener = new Listener(Integer.MAX_VALUE) {
+            @Override
+            public boolean foundRecord(Path file, long lineNumber, Object bean) {
+                beans.computeIfAbsent(file, f -> ConcurrentHashMap.newKeySet()).add(bean);
+                return super.foundRecord(file, lineNumber, bean);
+            }
+        };
+        List<FileResult> results = spec.parseFlatFiles(files, listener, 4,
+                ParseOptions.defaults().withMemoryMapped(true).withReuseBeans(true));
+
+        assertTrue(results.stream().allMatch(FileResult::succeeded));
+        assertEquals("File7_3", listener.records.get(files.get(7) + ":3"));
+        // every record of a file was loaded into the same bean
+        for (Path file : files) {
+            assertEquals(1, beans.get(file).size());
+        }
+    }
+
+    @Test
+    void testImmutableList() {
+        Listener listener = new Listener(Integer.MAX_VALUE);
+        List<FileResult> results = spec.parseFlatFiles(List.of(files.get(0), files.get(1)),
+                listener, 2);
+
+        assertEquals(2, results.size());
+        assertTrue(results.get(1).succeeded());
+        assertEquals(2 * LINES, listener.records.size());
+    }
+
+    @Test
+    void testInvalidArguments() {
+        Listener listener = new Listener(1);
+        assertThrows(TransformerException.class, () -> spec.parseFlatFiles(files, listener, 0));
+        assertThrows(TransformerException.class, () -> spec.parseFlatFiles(files, null, 1));
+        assertThrows(TransformerException.class,
+                () -> spec.parseFlatFiles(Arrays.asList(files.get(0), null), listener, 1));
+        assertThrows(TransformerException.class,
+                () -> spec.parseFlatFiles(dir.resolve("missing"), "*", listener, 1));
+        assertThrows(TransformerException.class,
+                () -> spec.parseFlatFiles(files, listener, 1, null));
+    }
+
+    static class Listener implements FileRecordListener {
+        final Map<String, String> records = new ConcurrentHashMap<>();
+
+        final Set<Path> open = ConcurrentHashMap.newKeySet();
+
+        final AtomicInteger maxOpen = new AtomicInteger();
+
+        final AtomicInteger completed = new AtomicInteger();
+
+        final int cap;
+
+        Listener(int cap) {
+            this.cap = cap;
+        }
+
+        @Override
+        public boolean foundRecord(Path file, long lineNumber, Object bean) {
+            opened(file);
+            records.put(file + ":" + lineNumber, ((DelimitedBean) bean).getNameOnCard());
+            return true;
+        }
+
+        @Override
+        public boolean unresolvableRecord(Path file, long lineNumber, String rec) {
+            opened(file);
+            records.put(file + ":" + lineNumber, rec);
+            return true;
+        }
+
+        @Override
+        public void fileCompleted(FileResult result) {
+            open.remove(result.file());
+            completed.incrementAndGet();
+        }
+
+        private void opened(Path file) {
+            if (open.add(file)) {
+                maxOpen.accumulateAndGet(open.size(), Math::max);
+            }
+        }
+    }
+}
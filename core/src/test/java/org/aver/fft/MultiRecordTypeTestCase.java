@@ -0,0 +1,176 @@
+package org.aver.fft;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.aver.fft.annotations.Column;
+import org.aver.fft.annotations.Transform;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Several record types read from one file, dispatched on the record
+ * identifier.
+ * 
+ * @author Mathew Thomas
+ */
+public class MultiRecordTypeTestCase {
+    private static final String FILE = """
+            H,B001,First Bank
+            D,ACC1,10.50
+            D,ACC2,20.25
+            X,unknown type
+            T,2,30.75
+            H,B002,Second Bank
+            T,0,0
+            """;
+
+    @Test
+    void testDispatch() {
+        Transformer spec = TransformerFactory.getTransformer(BatchHeader.class,
+                BatchDetail.class, BatchTrailer.class);
+
+        List<Object> found = new ArrayList<>();
+        List<String> unresolved = new ArrayList<>();
+        spec.parseFlatFile(new ByteArrayInputStream(FILE.getBytes(StandardCharsets.US_ASCII)),
+                new RecordListener() {
+                    public boolean foundRecord(Object o) {
+                        return found.add(o);
+                    }
+
+                    public boolean unresolvableRecord(String rec) {
+                        return unresolved.add(rec);
+                    }
+                });
+
+        assertEquals(List.of(BatchHeader.class, BatchDetail.class, BatchDetail.class,
+                BatchTrailer.class, BatchHeader.class, BatchTrailer.class),
+                found.stream().map(Object::getClass).toList());
+        assertEquals(List.of("X,unknown type"), unresolved);
+        assertEquals("First Bank", ((BatchHeader) found.get(0)).getBank());
+        assertEquals("ACC2", ((BatchDetail) found.get(2)).getAccount());
+        assertEquals(new BigDecimal("20.25"), ((BatchDetail) found.get(2)).getAmount());
+        assertEquals(2, ((BatchTrailer) found.get(3)).getCount());
+
+        BatchDetail detail = (BatchDetail) spec.loadRecord("D,ACC3,1.5");
+        assertEquals("ACC3", detail.getAccount());
+    }
+
+    @Test
+    void testQuotedIdentifier() {
+        Transformer spec = TransformerFactory.getTransformer(BatchHeader.class,
+                BatchDetail.class, BatchTrailer.class);
+
+        BatchHeader header = (BatchHeader) spec.loadRecord("\"H\",\"B001\",\"First, Bank\"");
+        assertEquals("First, Bank", header.getBank());
+        assertInstanceOf(BatchDetail.class, spec.loadRecord("\"D\",ACC1,10.50"));
+        assertInstanceOf(BatchTrailer.class, spec.loadRecord("T,\"2\",30.75"));
+        assertThrows(TransformerException.class, () -> spec.loadRecord("\"X\",ACC1,10.50"));
+    }
+
+    @Test
+    void testStrictestLimits() {
+        // the limits of the second type hold for the whole file
+        Transformer spec = TransformerFactory.getTransformer(BatchDetail.class,
+                LimitedHeader.class);
+        String text = "H,B001\n" + "D,ACC1,10.50\n".repeat(3);
+
+        List<Object> found = new ArrayList<>();
+        assertThrows(TransformerLimitException.class, () -> spec.parseFlatFile(
+                new ByteArrayInputStream(text.getBytes(StandardCharsets.US_ASCII)),
+                new RecordListener() {
+                    public boolean foundRecord(Object o) {
+                        return found.add(o);
+                    }
+
+                    public boolean unresolvableRecord(String rec) {
+                        return true;
+                    }
+                }));
+        assertEquals(3, found.size());
+        assertThrows(TransformerLimitException.class,
+                () -> spec.loadRecord("D,ACC1," + "1".repeat(30)));
+    }
+
+    @Test
+    void testFixedLength() {
+        Transformer spec = TransformerFactory.getTransformer(FixedHeader.class,
+                FixedDetail.class);
+
+        FixedHeader header = (FixedHeader) spec.loadRecord("01HDR20240101");
+        assertEquals("20240101", header.getDate());
+        FixedDetail detail = (FixedDetail) spec.loadRecord("02ACC0000123");
+        assertEquals("ACC", detail.getAccount());
+        assertEquals(123, detail.getAmount());
+        assertThrows(TransformerException.class, () -> spec.loadRecord("03ACC0000123"));
+    }
+
+    @Test
+    void testInvalidTypes() {
+        assertThrows(TransformerException.class, () -> TransformerFactory
+                .getTransformer(BatchHeader.class, DelimitedBean.class));
+        assertThrows(TransformerException.class, () -> TransformerFactory
+                .getTransformer(BatchHeader.class, FixedHeader.class));
+        assertThrows(TransformerException.class, () -> TransformerFactory
+                .getTransformer(BatchHeader.class, BatchHeader.class));
+    }
+
+    @Transform(columnSeparator = ",", recordIdentifier = "H", maxLines = 3,
+            maxLineLength = 20)
+    public static class LimitedHeader {
+        private String batchId;
+
+        @Column(position = 2)
+        public String getBatchId() {
+            return batchId;
+        }
+
+        public void setBatchId(String batchId) {
+            this.batchId = batchId;
+        }
+    }
+
+    @Transform(columnSeparatorType = Transformer.ColumnSeparator.FIXLENGTH,
+            recordIdentifier = "01")
+    public static class FixedHeader {
+        private String date;
+
+        @Column(position = 1, start = 6, end = 13)
+        public String getDate() {
+            return date;
+        }
+
+        public void setDate(String date) {
+            this.date = date;
+        }
+    }
+
+    @Transform(columnSeparatorType = Transformer.ColumnSeparator.FIXLENGTH,
+            recordIdentifier = "02")
+    public static class FixedDetail {
+        private String account;
+
+        private int amount;
+
+        @Column(position = 1, start = 3, end = 5)
+        public String getAccount() {
+            return account;
+        }
+
+        public void setAccount(String account) {
+            this.account = account;
+        }
+
+        @Column(position = 2, start = 6, end = 12)
+        public int getAmount() {
+            return amount;
+        }
+
+        public void setAmount(int amount) {
+            this.amount = amount;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package org.aver.fft;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A single file parsed on several threads.
+ * 
+ * @author Mathew Thomas
+ */
+public class ParallelParsingTestCase {
+    private static final int LINES = 40000;
+
+    @TempDir
+    Path dir;
+
+    private File file;
+
+    private Transformer spec;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < LINES; i++) {
+            if (i % 1000 == 999) {
+                text.append("bad record ").append(i).append("\r\n");
+            } else {
+                text.append("Name_").append(i).append(" 4111111111111111 02 2008 12.89 222 10212005\n");
+            }
+        }
+        file = Files.writeString(dir.resolve("large.txt"), text,
+                StandardCharsets.US_ASCII).toFile();
+        spec = TransformerFactory.getTransformer(DelimitedBean.class);
+    }
+
+    @Test
+    void testOrdered() {
+        Listener sequential = new Listener(Integer.MAX_VALUE);
+        spec.parseFlatFile(file, sequential);
+        Listener parallel = new Listener(Integer.MAX_VALUE);
+        spec.parseFlatFile(file, parallel, ParseOptions.defaults().withParallelism(4));
+
+        assertEquals(LINES, sequential.lines.size());
+        assertEquals(sequential.lines, parallel.lines);
+        assertEquals(LINES / 1000, parallel.unresolved);
+        assertTrue(parallel.sameThread);
+    }
+
+    @Test
+    void testUnordered() {
+        Listener parallel = new Listener(Integer.MAX_VALUE);
+        spec.parseFlatFile(file, parallel, ParseOptions.defaults()
+                .withParallelism(4).withOrdered(false));
+
+        Listener sequential = new Listener(Integer.MAX_VALUE);
+        spec.parseFlatFile(file, sequential);
+        assertEquals(new HashSet<>(sequential.lines), new HashSet<>(parallel.lines));
+        assertEquals(LINES, parallel.lines.size());
+        assertTrue(parallel.sameThread);
+    }
+
+    @Test
+    void testUnorderedLineNumbers() {
+        // numbered in delivery order, so every number is handed out once
+        List<Long> numbers = new ArrayList<>();
+        spec.parseFlatFile(file, batch -> {
+            for (int i = 0; i < batch.size(); i++) {
+                numbers.add(batch.getLineNumber(i));
+            }
+            for (int i = 0; i < batch.unresolvedSize(); i++) {
+                numbers.add(batch.getUnresolvedLineNumber(i));
+            }
+            return true;
+        }, ParseOptions.defaults().withParallelism(4).withOrdered(false).withBatchSize(500));
+
+        numbers.sort(null);
+        assertEquals(LongStream.rangeClosed(1, LINES).boxed().toList(), numbers);
+    }
+
+    @Test
+    void testUnorderedMaxLines() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 8; i++) {
+            text.append("Name_").append(i).append(" 4111111111111111 02 2008 12.89 222 10212005\n");
+        }
+        File small = Files.writeString(dir.resolve("small.txt"), text).toFile();
+        Listener parallel = new Listener(Integer.MAX_VALUE);
+
+        assertThrows(TransformerLimitException.class, () -> TransformerFactory
+                .getTransformer(LimitedBean.class).parseFlatFile(small, parallel,
+                        ParseOptions.defaults().withParallelism(4).withOrdered(false)));
+        assertEquals(5, parallel.lines.size());
+    }
+
+    @Test
+    void testStop() {
+        Listener parallel = new Listener(100);
+        spec.parseFlatFile(file, parallel, ParseOptions.defaults().withParallelism(4));
+
+        assertEquals(100, parallel.lines.size());
+        assertEquals("Name_0", parallel.lines.get(0));
+    }
+
+    @Test
+    void testInvalidParallelism() {
+        assertThrows(TransformerException.class, () -> {
+            ParseOptions.defaults().withParallelism(0);
+        });
+    }
+
+    static class Listener implements RecordListener {
+        final Thread caller = Thread.currentThread();
+
+        final List<String> lines = new ArrayList<>();
+
+        final int stopAfter;
+
+        int unresolved;
+
+        boolean sameThread = true;
+
+        Listener(int stopAfter) {
+            this.stopAfter = stopAfter;
+        }
+
+        @Override
+        public boolean foundRecord(Object o) {
+            lines.add(((DelimitedBean) o).getNameOnCard());
+            return next();
+        }
+
+        @Override
+        public boolean unresolvableRecord(String rec) {
+            lines.add(rec);
+            unresolved++;
+            return next();
+        }
+
+        private boolean next() {
+            sameThread &= Thread.currentThread() == caller;
+            return lines.size() < stopAfter;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package org.aver.fft;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+
+import org.aver.fft.ParallelParsingTestCase.Listener;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Files parsed in a pipeline of reader, binder and listener stages.
+ * 
+ * @author Mathew Thomas
+ */
+public class PipelinedParsingTestCase {
+    private static final int LINES = 40000;
+
+    @TempDir
+    Path dir;
+
+    private File file;
+
+    private Transformer spec;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < LINES; i++) {
+            if (i % 1000 == 999) {
+                text.append("bad record ").append(i).append("\r\n");
+            } else {
+                text.append("Name_").append(i).append(" 4111111111111111 02 2008 12.89 222 10212005\n");
+            }
+        }
+        file = Files.writeString(dir.resolve("large.txt"), text,
+                StandardCharsets.US_ASCII).toFile();
+        spec = TransformerFactory.getTransformer(DelimitedBean.class);
+    }
+
+    @Test
+    void testPipelined() {
+        Listener sequential = new Listener(Integer.MAX_VALUE);
+        spec.parseFlatFile(file, sequential);
+
+        PipelineStatistics statistics = PipelineStatistics.create();
+        Listener pipelined = new Listener(Integer.MAX_VALUE);
+        spec.parseFlatFile(file, pipelined, ParseOptions.defaults()
+                .withPipelined(true).withParallelism(3).withStatistics(statistics));
+
+        assertEquals(sequential.lines, pipelined.lines);
+        assertEquals(LINES / 1000, pipelined.unresolved);
+        assertTrue(pipelined.sameThread);
+        assertEquals((LINES + 255) / 256, statistics.getBatches());
+        assertEquals(0, statistics.getQueueDepth());
+        assertTrue(statistics.getMaxQueueDepth() >= 1);
+
+        Listener mapped = new Listener(Integer.MAX_VALUE);
+        spec.parseFlatFile(file, mapped, ParseOptions.defaults()
+                .withPipelined(true).withMemoryMapped(true));
+        assertEquals(sequential.lines, mapped.lines);
+    }
+
+    @Test
+    void testInputStream() throws IOException {
+        Listener sequential = new Listener(Integer.MAX_VALUE);
+        spec.parseFlatFile(file, sequential);
+
+        Listener pipelined = new Listener(Integer.MAX_VALUE);
+        spec.parseFlatFile(new ByteArrayInputStream(Files.readAllBytes(file.toPath())),
+                pipelined, ParseOptions.defaults().withPipelined(true).withParallelism(2));
+        assertEquals(sequential.lines, pipelined.lines);
+    }
+
+    @Test
+    void testStop() {
+        Listener pipelined = new Listener(1000);
+        spec.parseFlatFile(file, pipelined, ParseOptions.defaults()
+                .withPipelined(true).withParallelism(4));
+
+        assertEquals(1000, pipelined.lines.size());
+        assertEquals("Name_0", pipelined.lines.get(0));
+    }
+
+    @Test
+    void testStopWhileReaderBlocks() {
+        byte[] head = "Name_0 4111111111111111 02 2008 12.89 222 10212005\n".repeat(300)
+                .getBytes(StandardCharsets.US_ASCII);
+        CountDownLatch closed = new CountDownLatch(1);
+        InputStream blocking = new InputStream() {
+            int pos;
+
+            @Override
+            public int read() throws IOException {
+                byte[] b = new byte[1];
+                return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (pos < head.length) {
+                    int n = Math.min(len, head.length - pos);
+                    System.arraycopy(head, pos, b, off, n);
+                    pos += n;
+                    return n;
+                }
+                // like a socket, only closing the stream ends the read
+                while (closed.getCount() > 0) {
+                    try {
+                        closed.await();
+                    } catch (InterruptedException e) {
+                        // keep blocking
+                    }
+                }
+                throw new IOException("Stream closed");
+            }
+
+            @Override
+            public void close() {
+                closed.countDown();
+            }
+        };
+
+        Listener pipelined = new Listener(10);
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> spec.parseFlatFile(blocking,
+                pipelined, ParseOptions.defaults().withPipelined(true).withParallelism(2)));
+        assertEquals(10, pipelined.lines.size());
+        assertEquals(0, closed.getCount());
+    }
+
+    @Test
+    void testStatisticsAreCreatedByTheLibrary() {
+        PipelineStatistics own = new PipelineStatistics() {
+            public long getBatches() {
+                return 0;
+            }
+
+            public long getQueueDepth() {
+                return 0;
+            }
+
+            public long getMaxQueueDepth() {
+                return 0;
+            }
+
+            public long getReaderStalls() {
+                return 0;
+            }
+
+            public long getBinderStalls() {
+                return 0;
+            }
+
+            public long getListenerStalls() {
+                return 0;
+            }
+        };
+        ParseOptions options = ParseOptions.defaults().withPipelined(true)
+                .withStatistics(own);
+        assertThrows(TransformerException.class,
+                () -> spec.parseFlatFile(file, new Listener(Integer.MAX_VALUE), options));
+    }
+
+    @Test
+    void testLimit() {
+        Transformer limited = TransformerFactory.getTransformer(LimitedBean.class);
+        String text = "Mathew_Thomas 4111111111111111 02 2008 12.89 222 10212005\n".repeat(7);
+        int[] found = new int[1];
+        RecordListener listener = new RecordListener() {
+            public boolean foundRecord(Object o) {
+                found[0]++;
+                return true;
+            }
+
+            public boolean unresolvableRecord(String rec) {
+                return true;
+            }
+        };
+
+        assertThrows(TransformerLimitException.class, () -> limited.parseFlatFile(
+                new ByteArrayInputStream(text.getBytes(StandardCharsets.US_ASCII)),
+                listener, ParseOptions.defaults().withPipelined(true)));
+        assertEquals(5, found[0]);
+    }
+}
@@ -0,0 +1,160 @@
+package org.aver.fft;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Records published with backpressure.
+ * 
+ * @author Mathew Thomas
+ */
+public class PublisherTestCase {
+    private static final int LINES = 1000;
+
+    @TempDir
+    Path dir;
+
+    private Path file;
+
+    private Transformer spec;
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 1; i <= LINES; i++) {
+            text.append("Name_").append(i).append(" 4111111111111111 02 2008 12.89 222 10212005\n");
+        }
+        file = Files.writeString(dir.resolve("publish.txt"), text, StandardCharsets.US_ASCII);
+        spec = TransformerFactory.getTransformer(DelimitedBean.class);
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testOneAtATime() throws Exception {
+        Collector collector = new Collector(1);
+        spec.<DelimitedBean> publisher(file, executor).subscribe(collector);
+
+        collector.done.get(10, TimeUnit.SECONDS);
+        assertEquals(LINES, collector.names.size());
+        assertEquals("Name_1", collector.names.get(0));
+        assertEquals("Name_" + LINES, collector.names.get(LINES - 1));
+    }
+
+    @Test
+    void testParsesOnlyWhatWasRequested() throws Exception {
+        Collector collector = new Collector(0);
+        spec.<DelimitedBean> publisher(file, executor).subscribe(collector);
+
+        collector.subscription.request(3);
+        drain();
+        assertEquals(List.of("Name_1", "Name_2", "Name_3"), collector.names);
+        assertFalse(collector.done.isDone());
+
+        collector.subscription.request(2);
+        drain();
+        assertEquals(5, collector.names.size());
+
+        collector.subscription.cancel();
+        collector.subscription.request(10);
+        drain();
+        assertEquals(5, collector.names.size());
+        assertFalse(collector.done.isDone());
+    }
+
+    @Test
+    void testCompletesWhenDemandMatchesRecords() throws Exception {
+        Collector collector = new Collector(0);
+        spec.<DelimitedBean> publisher(file, executor).subscribe(collector);
+
+        collector.subscription.request(LINES);
+        collector.done.get(10, TimeUnit.SECONDS);
+        assertEquals(LINES, collector.names.size());
+    }
+
+    @Test
+    void testErrors() throws Exception {
+        Collector collector = new Collector(0);
+        spec.<DelimitedBean> publisher(file, executor).subscribe(collector);
+        collector.subscription.request(0);
+        Exception e = assertThrows(Exception.class, () -> collector.done.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalArgumentException.class, e.getCause());
+
+        Files.writeString(file, "bad record\n", StandardOpenOption.APPEND);
+        Collector all = new Collector(Long.MAX_VALUE);
+        spec.<DelimitedBean> publisher(file, executor).subscribe(all);
+        e = assertThrows(Exception.class, () -> all.done.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(TransformerParseException.class, e.getCause());
+        assertEquals(LINES, all.names.size());
+
+        assertThrows(TransformerException.class, () -> spec.publisher(dir.resolve("missing.txt"), executor));
+    }
+
+    /** Waits for the work queued on the single thread executor so far. */
+    private void drain() throws Exception {
+        executor.submit(() -> {
+        }).get(10, TimeUnit.SECONDS);
+    }
+
+    private static final class Collector implements Flow.Subscriber<DelimitedBean> {
+        final List<String> names = new CopyOnWriteArrayList<>();
+
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        private final long batch;
+
+        volatile Flow.Subscription subscription;
+
+        Collector(long batch) {
+            this.batch = batch;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (batch > 0) {
+                subscription.request(batch);
+            }
+        }
+
+        @Override
+        public void onNext(DelimitedBean item) {
+            names.add(item.getNameOnCard());
+            if (batch == 1) {
+                subscription.request(1);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            done.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            done.complete(null);
+        }
+    }
+}
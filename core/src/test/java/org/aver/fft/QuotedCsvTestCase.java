@@ -0,0 +1,276 @@
+package org.aver.fft;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.aver.fft.annotations.Column;
+import org.aver.fft.annotations.Transform;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Quoted columns follow RFC 4180: escaped quotes, text after a closing quote
+ * and line breaks inside quotes.
+ * 
+ * @author Mathew Thomas
+ */
+public class QuotedCsvTestCase {
+    private static final String FILE = """
+            1,plain,10
+            2,"with, comma",20
+            3,"say \"\"hi\"\"",30
+            4,"two
+            lines",40
+            5,"ab"x,50
+            6,"",60
+            """;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testLoadRecord() {
+        check(TransformerFactory.getTransformer(Note.class));
+    }
+
+    @Test
+    void testQuotedNumbers() {
+        Note note = (Note) TransformerFactory.getTransformer(Note.class)
+                .loadRecord("\"7\",\"a,b\",\"8\"");
+        assertEquals(7, note.getId());
+        assertEquals("a,b", note.getText());
+        assertEquals(8, note.getAmount());
+    }
+
+    @Test
+    void testLineBreaksInStream() {
+        List<Note> notes = new ArrayList<>();
+        TransformerFactory.getTransformer(Note.class).parseFlatFile(
+                new ByteArrayInputStream(FILE.getBytes(StandardCharsets.UTF_8)),
+                listener(notes));
+        checkFile(notes);
+
+        try (Stream<Note> stream = TransformerFactory.getTransformer(Note.class).stream(
+                new ByteArrayInputStream(FILE.getBytes(StandardCharsets.UTF_8)))) {
+            checkFile(stream.collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    void testLineBreaksInFile() throws IOException {
+        File file = Files.writeString(dir.resolve("notes.csv"),
+                FILE.replace("\n", "\r\n"), StandardCharsets.UTF_8).toFile();
+        for (ParseOptions options : List.of(ParseOptions.defaults(),
+                ParseOptions.defaults().withMemoryMapped(true),
+                ParseOptions.defaults().withPipelined(true))) {
+            List<Note> notes = new ArrayList<>();
+            TransformerFactory.getTransformer(Note.class)
+                    .parseFlatFile(file, listener(notes), options);
+            checkFile(notes);
+        }
+    }
+
+    @Test
+    void testUnterminatedQuote() {
+        List<Note> notes = new ArrayList<>();
+        List<String> unresolved = new ArrayList<>();
+        TransformerFactory.getTransformer(Note.class).parseFlatFile(
+                new ByteArrayInputStream("1,a,1\n2,\"open,2\n3,c,3\n"
+                        .getBytes(StandardCharsets.UTF_8)), listener(notes, unresolved));
+        // the quote never closes, so only its own line is unresolvable
+        assertEquals(List.of(1, 3), notes.stream().map(Note::getId).toList());
+        assertEquals(List.of("2,\"open,2"), unresolved);
+    }
+
+    @Test
+    void testStrayQuoteIsNotJoinedPastTheLineCap() {
+        StringBuilder text = new StringBuilder("1,\"open,1\n");
+        for (int i = 2; i <= 150; i++) {
+            text.append(i).append(",text,").append(i).append('\n');
+        }
+        List<Note> notes = new ArrayList<>();
+        List<String> unresolved = new ArrayList<>();
+        TransformerFactory.getTransformer(Note.class).parseFlatFile(
+                new ByteArrayInputStream(text.toString().getBytes(StandardCharsets.UTF_8)),
+                listener(notes, unresolved));
+
+        assertEquals(149, notes.size());
+        assertEquals(2, notes.get(0).getId());
+        assertEquals(List.of("1,\"open,1"), unresolved);
+    }
+
+    @Test
+    void testLineNumbersCountLinesOfTheFile() throws IOException {
+        File file = Files.writeString(dir.resolve("notes.csv"), FILE, StandardCharsets.UTF_8)
+                .toFile();
+        for (ParseOptions options : List.of(ParseOptions.defaults(),
+                ParseOptions.defaults().withMemoryMapped(true),
+                ParseOptions.defaults().withPipelined(true),
+                ParseOptions.defaults().withParallelism(2))) {
+            List<Long> lines = new ArrayList<>();
+            TransformerFactory.getTransformer(Note.class).parseFlatFile(file, batch -> {
+                for (int i = 0; i < batch.size(); i++) {
+                    lines.add(batch.getLineNumber(i));
+                }
+                return true;
+            }, options);
+            // the record with the line break starts on line 4 and ends on 5
+            assertEquals(List.of(1L, 2L, 3L, 4L, 6L, 7L), lines, options.toString());
+        }
+    }
+
+    @Test
+    void testLineBreakAtParallelSplitFails() throws IOException {
+        // ranges are at least 64 KB: 4095 lines of 16 bytes end at 65520, so
+        // the first range ends inside the quoted column
+        File file = Files.writeString(dir.resolve("notes.csv"),
+                filler(4095) + "999999,\"quoted text\n9,second line\",7\n" + filler(100),
+                StandardCharsets.UTF_8).toFile();
+        Transformer spec = TransformerFactory.getTransformer(Note.class);
+
+        List<Note> notes = new ArrayList<>();
+        spec.parseFlatFile(file, listener(notes));
+        assertEquals(4196, notes.size());
+        assertEquals("quoted text\n9,second line", notes.get(4095).getText());
+
+        TransformerException e = assertThrows(TransformerException.class,
+                () -> spec.parseFlatFile(file, listener(new ArrayList<>()),
+                        ParseOptions.defaults().withParallelism(2)));
+        assertTrue(e.getMessage().contains("parallelism 1"), e.getMessage());
+    }
+
+    @Test
+    void testStrayQuoteAtParallelSplit() throws IOException {
+        File file = Files.writeString(dir.resolve("notes.csv"),
+                filler(4095) + "999999,\"stray quote,7\n" + filler(200),
+                StandardCharsets.UTF_8).toFile();
+        List<Note> notes = new ArrayList<>();
+        List<String> unresolved = new ArrayList<>();
+        TransformerFactory.getTransformer(Note.class).parseFlatFile(file,
+                listener(notes, unresolved), ParseOptions.defaults().withParallelism(2));
+
+        // the quote never closes, so the split did not cut a record
+        assertEquals(4295, notes.size());
+        assertEquals(List.of("999999,\"stray quote,7"), unresolved);
+    }
+
+    @Test
+    void testLineBreakAtStreamSplitFails() throws IOException {
+        // a stream is split in the middle of the file, inside the quoted column;
+        // the second half of the record reads as a record of its own
+        Path file = Files.writeString(dir.resolve("notes.csv"),
+                filler(4100) + "999999,\"quoted text\n9,second line\",7\n" + filler(4100),
+                StandardCharsets.UTF_8);
+        Transformer spec = TransformerFactory.getTransformer(Note.class);
+
+        try (Stream<Note> stream = spec.stream(file)) {
+            assertEquals(8201, stream.count());
+        }
+        try (Stream<Note> stream = spec.stream(file)) {
+            TransformerException e = assertThrows(TransformerException.class,
+                    () -> stream.parallel().collect(Collectors.toList()));
+            assertTrue(e.getMessage().contains("parallelism 1"), e.getMessage());
+        }
+    }
+
+    /**
+     * @return lines of 16 bytes each
+     */
+    private static String filler(int lines) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 1; i <= lines; i++) {
+            text.append("%06d,filler,1\n".formatted(i));
+        }
+        return text.toString();
+    }
+
+    private static void check(Transformer spec) {
+        Note note = (Note) spec.loadRecord("3,\"say \"\"hi\"\"\",30");
+        assertEquals("say \"hi\"", note.getText());
+        assertEquals(30, note.getAmount());
+
+        note = (Note) spec.loadRecord("5,\"ab\"x,50");
+        assertEquals("abx", note.getText());
+        assertEquals(50, note.getAmount());
+
+        note = (Note) spec.loadRecord("8,a\"b\"c,80");
+        assertEquals("a\"b\"c", note.getText());
+
+        note = (Note) spec.loadRecord("9,\"\",90");
+        assertEquals("", note.getText());
+        assertEquals(90, note.getAmount());
+    }
+
+    private static void checkFile(List<Note> notes) {
+        assertEquals(6, notes.size());
+        assertEquals("plain", notes.get(0).getText());
+        assertEquals("with, comma", notes.get(1).getText());
+        assertEquals("say \"hi\"", notes.get(2).getText());
+        assertEquals("two\nlines", notes.get(3).getText());
+        assertEquals(40, notes.get(3).getAmount());
+        assertEquals("abx", notes.get(4).getText());
+        assertEquals("", notes.get(5).getText());
+        assertEquals(60, notes.get(5).getAmount());
+    }
+
+    private static RecordListener listener(List<Note> notes) {
+        return listener(notes, new ArrayList<>());
+    }
+
+    private static RecordListener listener(List<Note> notes, List<String> unresolved) {
+        return new RecordListener() {
+            public boolean foundRecord(Object o) {
+                return notes.add((Note) o);
+            }
+
+            public boolean unresolvableRecord(String rec) {
+                return unresolved.add(rec);
+            }
+        };
+    }
+
+    @Transform(columnSeparator = ",")
+    public static class Note {
+        private int id;
+
+        private String text;
+
+        private int amount;
+
+        @Column(position = 1)
+        public int getId() {
+            return id;
+        }
+
+        public void setId(int id) {
+            this.id = id;
+        }
+
+        @Column(position = 2)
+        public String getText() {
+            return text;
+        }
+
+        public void setText(String text) {
+            this.text = text;
+        }
+
+        @Column(position = 3)
+        public int getAmount() {
+            return amount;
+        }
+
+        public void setAmount(int amount) {
+            this.amount = amount;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package org.aver.fft;
+
+import org.aver.fft.impl.FlatFileTransformer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Records loaded through a record binder found by the transformer factory.
+ * 
+ * @author Mathew Thomas
+ */
+public class RecordBinderTestCase {
+    private Transformer transformer = null;
+
+    @BeforeEach
+    void setUp() {
+        transformer = TransformerFactory.getTransformer(BoundDelimitedBean.class);
+    }
+
+    @Test
+    void testBinderIsUsed() {
+        assertTrue(((FlatFileTransformer) transformer).hasRecordBinder());
+        assertFalse(((FlatFileTransformer) TransformerFactory
+                .getTransformer(DelimitedBean.class)).hasRecordBinder());
+    }
+
+    @Test
+    void testBinderIsGenerated() {
+        // written by the annotation processor during test compilation
+        assertDoesNotThrow(() -> Class.forName("org.aver.fft.BoundDelimitedBean_RecordBinder"));
+        assertThrows(ClassNotFoundException.class,
+                () -> Class.forName("org.aver.fft.DelimitedBean_RecordBinder"));
+    }
+
+    @Test
+    void testDelimitedRecord() {
+        String line = "\"Thomas Mathew\" 4111111111111111 02 2008 12A.89 222 10212005";
+        BoundDelimitedBean bean = (BoundDelimitedBean) transformer.loadRecord(line);
+
+        assertEquals("Thomas Mathew", bean.getNameOnCard());
+        assertEquals("4111111111111111", bean.getCardNumber());
+        assertEquals(2, bean.getExpMonth());
+        assertEquals(2008, bean.getExpYear());
+        assertEquals(0.0, bean.getAmount(), 0.01);
+        assertEquals("222", bean.getCardSecurityCode());
+        assertTrue(bean.getTransactionDate().toString().contains("2005"));
+    }
+
+    @Test
+    void testInvalidNumberOfColumns() {
+        assertThrows(TransformerParseException.class, () -> {
+            transformer.loadRecord("Mathew_Thomas 4111111111111111 02 2008 12.89");
+        });
+    }
+}
@@ -0,0 +1,146 @@
+package org.aver.fft;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Header, detail and trailer records assembled into groups.
+ * 
+ * @author Mathew Thomas
+ */
+public class RecordGroupAssemblerTestCase {
+    private Transformer spec;
+
+    private List<RecordGroup<BatchHeader, BatchDetail, BatchTrailer>> groups;
+
+    private List<String> invalid;
+
+    @BeforeEach
+    void setUp() {
+        spec = TransformerFactory.getTransformer(BatchHeader.class,
+                BatchDetail.class, BatchTrailer.class);
+        groups = new ArrayList<>();
+        invalid = new ArrayList<>();
+    }
+
+    @Test
+    void testGroups() {
+        parse("""
+                H,B001,First Bank
+                D,ACC1,10.10
+                D,ACC2,20.20
+                T,2,30.30
+                H,B002,Second Bank
+                T,0,0
+                """, Integer.MAX_VALUE);
+
+        assertEquals(List.of(), invalid);
+        assertEquals(2, groups.size());
+        assertEquals("B001", groups.get(0).header().getBatchId());
+        assertEquals(List.of("ACC1", "ACC2"), groups.get(0).details().stream()
+                .map(BatchDetail::getAccount).toList());
+        assertEquals(2, groups.get(0).trailer().getCount());
+        assertEquals("B002", groups.get(1).header().getBatchId());
+        assertTrue(groups.get(1).details().isEmpty());
+        assertThrows(UnsupportedOperationException.class,
+                () -> groups.get(0).details().clear());
+    }
+
+    @Test
+    void testExactTotals() {
+        // more digits than a double holds
+        parse("""
+                H,B001,First Bank
+                D,ACC1,12345678901234567.01
+                D,ACC2,0.02
+                T,2,12345678901234567.03
+                H,B002,Second Bank
+                D,ACC1,12345678901234567.01
+                T,1,12345678901234567.02
+                """, Integer.MAX_VALUE);
+
+        assertEquals(1, groups.size());
+        assertEquals(List.of("trailer total 12345678901234567.02 but details add up to 12345678901234567.01"),
+                invalid);
+    }
+
+    @Test
+    void testInvalidGroups() {
+        parse("""
+                H,B001,First Bank
+                D,ACC1,10.10
+                T,2,10.10
+                H,B002,Second Bank
+                D,ACC1,10.10
+                T,1,10.11
+                D,ACC1,10.10
+                T,1,10.10
+                H,B003,Third Bank
+                H,B004,Fourth Bank
+                D,ACC1,5
+                T,1,5
+                H,B005,Fifth Bank
+                """, Integer.MAX_VALUE);
+
+        assertEquals(List.of("trailer count 2 but 1 details",
+                "trailer total 10.11 but details add up to 10.10",
+                "trailer without a header",
+                "header before the trailer of the previous group",
+                "end of file before the trailer"), invalid);
+        assertEquals(1, groups.size());
+        assertEquals("B004", groups.get(0).header().getBatchId());
+    }
+
+    @Test
+    void testDefaultFailsOnInvalidGroup() {
+        RecordGroupAssembler<BatchHeader, BatchDetail, BatchTrailer> assembler = new RecordGroupAssembler<>(
+                BatchHeader.class, BatchDetail.class, BatchTrailer.class, groups::add)
+                .validateCount(BatchTrailer::getCount);
+
+        assertThrows(TransformerException.class, () -> spec.parseFlatFile(stream("""
+                H,B001,First Bank
+                T,1,0
+                """), assembler));
+    }
+
+    @Test
+    void testMaxDetails() {
+        assertThrows(TransformerException.class, () -> parse("""
+                H,B001,First Bank
+                D,ACC1,1
+                D,ACC2,1
+                D,ACC3,1
+                T,3,3
+                """, 2));
+        assertTrue(groups.isEmpty());
+    }
+
+    private void parse(String file, int maxDetails) {
+        RecordGroupAssembler<BatchHeader, BatchDetail, BatchTrailer> assembler = new RecordGroupAssembler<>(
+                BatchHeader.class, BatchDetail.class, BatchTrailer.class,
+                new RecordGroupListener<>() {
+                    public boolean foundGroup(RecordGroup<BatchHeader, BatchDetail, BatchTrailer> group) {
+                        return groups.add(group);
+                    }
+
+                    public boolean invalidGroup(RecordGroup<BatchHeader, BatchDetail, BatchTrailer> group,
+                            String reason) {
+                        return invalid.add(reason);
+                    }
+                })
+                .validateCount(BatchTrailer::getCount)
+                .validateTotal(BatchDetail::getAmount, BatchTrailer::getTotal)
+                .maxDetails(maxDetails);
+        spec.parseFlatFile(stream(file), assembler);
+    }
+
+    private static ByteArrayInputStream stream(String file) {
+        return new ByteArrayInputStream(file.getBytes(StandardCharsets.US_ASCII));
+    }
+}
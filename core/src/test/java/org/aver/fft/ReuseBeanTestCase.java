@@ -0,0 +1,175 @@
+package org.aver.fft;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import org.aver.fft.annotations.Column;
+import org.aver.fft.annotations.Transform;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Records loaded into reused beans.
+ * 
+ * @author Mathew Thomas
+ */
+public class ReuseBeanTestCase {
+    private static final int LINES = 20_000;
+
+    @TempDir
+    Path dir;
+
+    private File file;
+
+    private Transformer spec;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 1; i <= LINES; i++) {
+            text.append(i).append(',').append(i / 4.0).append(',').append(i % 2 == 0).append('\n');
+        }
+        file = Files.writeString(dir.resolve("readings.txt"), text, StandardCharsets.US_ASCII).toFile();
+        spec = TransformerFactory.getTransformer(Reading.class);
+    }
+
+    @Test
+    void testOneBean() {
+        Listener listener = new Listener();
+        spec.parseFlatFile(file, listener, ParseOptions.defaults().withReuseBeans(true));
+        listener.check();
+        assertEquals(1, listener.beans.size());
+
+        listener = new Listener();
+        spec.parseFlatFile(file, listener, ParseOptions.defaults().withReuseBeans(true)
+                .withMemoryMapped(true));
+        listener.check();
+        assertEquals(1, listener.beans.size());
+
+        listener = new Listener();
+        spec.parseFlatFile(file, listener, ParseOptions.defaults());
+        listener.check();
+        assertEquals(LINES, listener.beans.size());
+    }
+
+    @Test
+    void testPipelined() {
+        Listener listener = new Listener();
+        spec.parseFlatFile(file, listener, ParseOptions.defaults().withReuseBeans(true)
+                .withPipelined(true).withParallelism(4));
+        listener.check();
+        assertTrue(listener.beans.size() < LINES, "beans: " + listener.beans.size());
+    }
+
+    @Test
+    void testUnsupported() {
+        ParseOptions reuse = ParseOptions.defaults().withReuseBeans(true);
+        assertThrows(TransformerException.class,
+                () -> spec.parseFlatFile(file, batch -> true, reuse));
+        assertThrows(TransformerException.class,
+                () -> spec.parseFlatFile(file, new Listener(), reuse.withParallelism(4)));
+    }
+
+    @Test
+    void testNoAllocationPerRecord() {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads)
+                || !threads.isThreadAllocatedMemorySupported()) {
+            return;
+        }
+        ParseOptions options = ParseOptions.defaults().withReuseBeans(true).withMemoryMapped(true);
+        RecordListener sum = new RecordListener() {
+            long total;
+
+            public boolean foundRecord(Object o) {
+                total += ((Reading) o).getId();
+                return true;
+            }
+
+            public boolean unresolvableRecord(String rec) {
+                return false;
+            }
+        };
+        // warm up, so the parse runs compiled
+        for (int i = 0; i < 20; i++) {
+            spec.parseFlatFile(file, sum, options);
+        }
+
+        long id = Thread.currentThread().threadId();
+        long before = threads.getThreadAllocatedBytes(id);
+        spec.parseFlatFile(file, sum, options);
+        long allocated = threads.getThreadAllocatedBytes(id) - before;
+        // opening and mapping the file allocates, the records do not
+        assertTrue(allocated < LINES, "allocated " + allocated + " bytes");
+    }
+
+    private static final class Listener implements RecordListener {
+        final Set<Object> beans = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        final List<String> values = new ArrayList<>();
+
+        public boolean foundRecord(Object o) {
+            Reading reading = (Reading) o;
+            beans.add(reading);
+            values.add(reading.getId() + " " + reading.getValue() + " " + reading.getEven());
+            return true;
+        }
+
+        public boolean unresolvableRecord(String rec) {
+            return false;
+        }
+
+        void check() {
+            assertEquals(LINES, values.size());
+            assertEquals("1 0.25 false", values.get(0));
+            assertEquals("2 0.5 true", values.get(1));
+            assertEquals(LINES + " " + LINES / 4.0 + " true", values.get(LINES - 1));
+        }
+    }
+
+    @Transform(columnSeparator = ",")
+    public static class Reading {
+        private int id;
+
+        private double value;
+
+        private boolean even;
+
+        @Column(position = 1)
+        public int getId() {
+            return id;
+        }
+
+        public void setId(int id) {
+            this.id = id;
+        }
+
+        @Column(position = 2)
+        public double getValue() {
+            return value;
+        }
+
+        public void setValue(double value) {
+            this.value = value;
+        }
+
+        @Column(position = 3)
+        public boolean getEven() {
+            return even;
+        }
+
+        public void setEven(boolean even) {
+            this.even = even;
+        }
+    }
+}
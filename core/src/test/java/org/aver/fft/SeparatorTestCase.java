@@ -0,0 +1,192 @@
+package org.aver.fft;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.aver.fft.annotations.Column;
+import org.aver.fft.annotations.Transform;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Separators of several characters, tabs and collapsed runs of separators.
+ * 
+ * @author Mathew Thomas
+ */
+public class SeparatorTestCase {
+    @Test
+    void testMultiCharacter() {
+        Transformer spec = TransformerFactory.getTransformer(PipesBean.class);
+        Item item = (Item) spec.loadRecord("a|b||7||c");
+        assertEquals("a|b", item.getName());
+        assertEquals(7, item.getCount());
+        assertEquals("c", item.getNote());
+
+        item = (Item) spec.loadRecord("\"x||y\"||8||");
+        assertEquals("x||y", item.getName());
+        assertEquals(8, item.getCount());
+        assertEquals("", item.getNote());
+
+        assertThrows(TransformerParseException.class, () -> spec.loadRecord("a||7"));
+    }
+
+    @Test
+    void testTab() {
+        Item item = (Item) TransformerFactory.getTransformer(TabBean.class)
+                .loadRecord("a b\t9\tc d");
+        assertEquals("a b", item.getName());
+        assertEquals(9, item.getCount());
+        assertEquals("c d", item.getNote());
+
+        item = (Item) TransformerFactory.getTransformer(TabPipeBean.class)
+                .loadRecord("a\t|10\t|c|\td");
+        assertEquals("a", item.getName());
+        assertEquals(10, item.getCount());
+        assertEquals("c|\td", item.getNote());
+    }
+
+    @Test
+    void testCollapse() {
+        Transformer spec = TransformerFactory.getTransformer(ReportBean.class);
+        Item item = (Item) spec.loadRecord("   widget     12   blue   ");
+        assertEquals("widget", item.getName());
+        assertEquals(12, item.getCount());
+        assertEquals("blue", item.getNote());
+
+        item = (Item) spec.loadRecord("\"big  widget\"  3  \"\"");
+        assertEquals("big  widget", item.getName());
+        assertEquals(3, item.getCount());
+        assertEquals("", item.getNote());
+
+        // trailing separators do not make an empty column
+        assertThrows(TransformerParseException.class, () -> spec.loadRecord(" widget  12   "));
+    }
+
+    @Test
+    void testMultipleRecordTypes() {
+        Transformer spec = TransformerFactory.getTransformer(Header.class, Detail.class);
+        List<Object> found = new ArrayList<>();
+        spec.parseFlatFile(new ByteArrayInputStream("""
+                H || 2024
+                D || "two
+                lines" || 5
+                D || one || 6
+                """.getBytes(StandardCharsets.UTF_8)), new RecordListener() {
+            public boolean foundRecord(Object o) {
+                return found.add(o);
+            }
+
+            public boolean unresolvableRecord(String rec) {
+                return false;
+            }
+        });
+
+        assertEquals(3, found.size());
+        assertEquals(2024, ((Header) found.get(0)).getYear());
+        assertEquals("two\nlines", ((Detail) found.get(1)).getName());
+        assertEquals(5, ((Detail) found.get(1)).getCount());
+        assertEquals("one", ((Detail) found.get(2)).getName());
+    }
+
+    @Test
+    void testSeparatorsMustMatch() {
+        assertThrows(TransformerException.class,
+                () -> TransformerFactory.getTransformer(Header.class, CollapsedDetail.class));
+    }
+
+    public static class Item {
+        private String name;
+
+        private int count;
+
+        private String note;
+
+        @Column(position = 1)
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        @Column(position = 2)
+        public int getCount() {
+            return count;
+        }
+
+        public void setCount(int count) {
+            this.count = count;
+        }
+
+        @Column(position = 3)
+        public String getNote() {
+            return note;
+        }
+
+        public void setNote(String note) {
+            this.note = note;
+        }
+    }
+
+    @Transform(columnSeparator = "||")
+    public static class PipesBean extends Item {
+    }
+
+    @Transform(columnSeparator = "\t")
+    public static class TabBean extends Item {
+    }
+
+    @Transform(columnSeparator = "\t|")
+    public static class TabPipeBean extends Item {
+    }
+
+    @Transform(collapseSeparators = true)
+    public static class ReportBean extends Item {
+    }
+
+    @Transform(columnSeparator = " || ", recordIdentifier = "H")
+    public static class Header {
+        private int year;
+
+        @Column(position = 2)
+        public int getYear() {
+            return year;
+        }
+
+        public void setYear(int year) {
+            this.year = year;
+        }
+    }
+
+    @Transform(columnSeparator = " || ", recordIdentifier = "D")
+    public static class Detail {
+        private String name;
+
+        private int count;
+
+        @Column(position = 2)
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        @Column(position = 3)
+        public int getCount() {
+            return count;
+        }
+
+        public void setCount(int count) {
+            this.count = count;
+        }
+    }
+
+    @Transform(columnSeparator = " || ", recordIdentifier = "D", collapseSeparators = true)
+    public static class CollapsedDetail extends Detail {
+    }
+}
@@ -0,0 +1,144 @@
+package org.aver.fft;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Records read through java.util.stream.
+ * 
+ * @author Mathew Thomas
+ */
+public class StreamTestCase {
+    private static final int LINES = 30000;
+
+    @TempDir
+    Path dir;
+
+    private Path file;
+
+    private Transformer spec;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 1; i <= LINES; i++) {
+            text.append("Name_").append(i).append(" 4111111111111111 02 2008 12.89 222 10212005\n");
+        }
+        file = Files.writeString(dir.resolve("stream.txt"), text, StandardCharsets.US_ASCII);
+        spec = TransformerFactory.getTransformer(DelimitedBean.class);
+    }
+
+    @Test
+    void testSequentialStream() {
+        List<String> expected = new ArrayList<>();
+        spec.parseFlatFile(file.toFile(), new RecordListener() {
+            public boolean foundRecord(Object o) {
+                return expected.add(((DelimitedBean) o).getNameOnCard());
+            }
+
+            public boolean unresolvableRecord(String rec) {
+                return true;
+            }
+        });
+
+        try (Stream<DelimitedBean> records = spec.stream(file)) {
+            assertEquals(expected, records.map(DelimitedBean::getNameOnCard).toList());
+        }
+    }
+
+    @Test
+    void testParallelStream() {
+        try (Stream<DelimitedBean> records = spec.stream(file)) {
+            List<String> names = records.parallel()
+                    .map(DelimitedBean::getNameOnCard).toList();
+            assertEquals(LINES, names.size());
+            assertEquals("Name_1", names.get(0));
+            assertEquals("Name_" + LINES, names.get(LINES - 1));
+        }
+
+        try (Stream<DelimitedBean> records = spec.stream(file)) {
+            assertEquals(LINES, records.parallel().unordered()
+                    .map(DelimitedBean::getNameOnCard)
+                    .collect(Collectors.toCollection(HashSet::new)).size());
+        }
+    }
+
+    @Test
+    void testParallelStreamReportsLineOfTheFile() throws IOException {
+        Files.writeString(file, "bad record\n", StandardOpenOption.APPEND);
+
+        try (Stream<DelimitedBean> records = spec.stream(file)) {
+            TransformerParseException e = assertThrows(TransformerParseException.class,
+                    () -> records.parallel().forEach(r -> {
+                    }));
+            assertTrue(e.getMessage().startsWith("Could not load line " + (LINES + 1) + ":"),
+                    e.getMessage());
+        }
+    }
+
+    @Test
+    void testNoSplitAfterTraversalStarted() {
+        try (Stream<DelimitedBean> records = spec.stream(file)) {
+            Spliterator<DelimitedBean> spliterator = records.spliterator();
+            assertTrue(spliterator.tryAdvance(r -> assertEquals("Name_1", r.getNameOnCard())));
+            assertNull(spliterator.trySplit());
+
+            List<DelimitedBean> rest = new ArrayList<>();
+            spliterator.forEachRemaining(rest::add);
+            assertEquals(LINES - 1, rest.size());
+        }
+    }
+
+    @Test
+    void testShortCircuit() throws IOException {
+        Files.writeString(file, "bad record\n", StandardOpenOption.APPEND);
+
+        try (Stream<DelimitedBean> records = spec.stream(file)) {
+            Optional<DelimitedBean> first = records.findFirst();
+            assertEquals("Name_1", first.get().getNameOnCard());
+        }
+        try (Stream<DelimitedBean> records = spec.stream(file)) {
+            assertEquals(10, records.limit(10).map(DelimitedBean::getNameOnCard).toList().size());
+        }
+        try (Stream<DelimitedBean> records = spec.stream(file)) {
+            assertThrows(TransformerParseException.class, () -> records.forEach(r -> {
+            }));
+        }
+    }
+
+    @Test
+    void testInputStream() {
+        boolean[] closed = new boolean[1];
+        ByteArrayInputStream in = new ByteArrayInputStream(
+                "Mathew_Thomas 4111111111111111 02 2008 12.89 222 10212005\r\nfname_lname 4111111111111112 02 2008 12.89 222 10212005"
+                        .getBytes(StandardCharsets.US_ASCII)) {
+            @Override
+            public void close() throws IOException {
+                closed[0] = true;
+                super.close();
+            }
+        };
+
+        try (Stream<DelimitedBean> records = spec.stream(in)) {
+            assertEquals(List.of("Mathew_Thomas", "fname_lname"),
+                    records.map(DelimitedBean::getNameOnCard).toList());
+        }
+        assertTrue(closed[0]);
+    }
+}
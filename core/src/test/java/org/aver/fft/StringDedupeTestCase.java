@@ -0,0 +1,135 @@
+package org.aver.fft;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.aver.fft.annotations.Column;
+import org.aver.fft.annotations.Transform;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Repeated values of dedupe columns share one string.
+ * 
+ * @author Mathew Thomas
+ */
+public class StringDedupeTestCase {
+    private static final String LONG = "x".repeat(100);
+
+    private static final String FILE = """
+            CA,C001,ABC
+            NY,C002,ABC
+            CA,C003,ABC
+            NY,C004,%s
+            CA,C005,%s
+            """.formatted(LONG, LONG);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testSharedStrings() {
+        check(TransformerFactory.getTransformer(Contribution.class));
+    }
+
+    @Test
+    void testMemoryMapped() throws IOException {
+        File file = Files.writeString(dir.resolve("contributions.txt"), FILE,
+                StandardCharsets.US_ASCII).toFile();
+        List<Contribution> found = new ArrayList<>();
+        TransformerFactory.getTransformer(Contribution.class).parseFlatFile(file, new RecordListener() {
+            public boolean foundRecord(Object o) {
+                return found.add((Contribution) o);
+            }
+
+            public boolean unresolvableRecord(String rec) {
+                return false;
+            }
+        }, ParseOptions.defaults().withMemoryMapped(true));
+
+        assertEquals(5, found.size());
+        assertEquals("CA", found.get(0).getState());
+        assertSame(found.get(0).getState(), found.get(2).getState());
+        assertSame(found.get(1).getState(), found.get(3).getState());
+        assertSame(found.get(0).getForm(), found.get(1).getForm());
+    }
+
+    @Test
+    void testOnlyStrings() {
+        assertThrows(TransformerException.class,
+                () -> TransformerFactory.getTransformer(BadDedupe.class));
+    }
+
+    private static void check(Transformer spec) {
+        List<Contribution> beans = new ArrayList<>();
+        for (String line : FILE.split("\n")) {
+            beans.add((Contribution) spec.loadRecord(line));
+        }
+
+        assertEquals("CA", beans.get(0).getState());
+        assertEquals("NY", beans.get(1).getState());
+        assertSame(beans.get(0).getState(), beans.get(2).getState());
+        assertSame(beans.get(0).getState(), beans.get(4).getState());
+        assertSame(beans.get(1).getState(), beans.get(3).getState());
+        assertSame(beans.get(0).getForm(), beans.get(2).getForm());
+        // long values are not kept
+        assertEquals(LONG, beans.get(3).getForm());
+        assertNotSame(beans.get(3).getForm(), beans.get(4).getForm());
+    }
+
+    @Transform(columnSeparator = ",")
+    public static class Contribution {
+        private String state;
+
+        private String id;
+
+        private String form;
+
+        @Column(position = 1, dedupe = true)
+        public String getState() {
+            return state;
+        }
+
+        public void setState(String state) {
+            this.state = state;
+        }
+
+        @Column(position = 2)
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        @Column(position = 3, dedupe = true)
+        public String getForm() {
+            return form;
+        }
+
+        public void setForm(String form) {
+            this.form = form;
+        }
+    }
+
+    @Transform(columnSeparator = ",")
+    public static class BadDedupe {
+        private int amount;
+
+        @Column(position = 1, dedupe = true)
+        public int getAmount() {
+            return amount;
+        }
+
+        public void setAmount(int amount) {
+            this.amount = amount;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package org.aver.fft;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.aver.fft.annotations.Column;
+import org.aver.fft.annotations.Transform;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Transformers cached by the factory and shared between threads.
+ * 
+ * @author Mathew Thomas
+ */
+public class TransformerFactoryTestCase {
+
+    @Test
+    void testTransformerIsCached() {
+        Transformer spec = TransformerFactory.getTransformer(DelimitedBean.class);
+        assertSame(spec, TransformerFactory.getTransformer(DelimitedBean.class));
+        assertNotSame(spec, TransformerFactory.getTransformer(CommaDelimitedBean.class));
+    }
+
+    @Test
+    void testInvalidClassIsRejected() {
+        assertThrows(TransformerException.class, () -> {
+            TransformerFactory.getTransformer(String.class);
+        });
+        assertThrows(TransformerException.class, () -> {
+            TransformerFactory.getTransformer(String.class);
+        });
+    }
+
+    @Test
+    void testPackagePrivateBean() {
+        Payment payment = (Payment) TransformerFactory.getTransformer(Payment.class)
+                .loadRecord("Mathew 12");
+        assertEquals("Mathew", payment.getName());
+        assertEquals(12, payment.getAmount());
+    }
+
+    @Test
+    void testConcurrentLoadRecord() throws Exception {
+        Transformer spec = TransformerFactory.getTransformer(DelimitedBean.class);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                final int thread = t;
+                results.add(executor.submit(() -> {
+                    for (int i = 0; i < 2000; i++) {
+                        String name = "Name_" + thread + "_" + i;
+                        DelimitedBean bean = (DelimitedBean) spec.loadRecord(
+                                name + " 4111111111111111 " + (i % 12 + 1) + " 2008 12.89 222 10212005");
+                        if (!name.equals(bean.getNameOnCard())
+                                || bean.getExpMonth() != i % 12 + 1) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Transform
+    static class Payment {
+        private String name;
+
+        private int amount;
+
+        @Column(position = 1)
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        @Column(position = 2)
+        public int getAmount() {
+            return amount;
+        }
+
+        public void setAmount(int amount) {
+            this.amount = amount;
+        }
+    }
+}
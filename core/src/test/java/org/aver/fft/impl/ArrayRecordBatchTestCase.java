@@ -0,0 +1,44 @@
+package org.aver.fft.impl;
+
+import java.util.List;
+
+import org.aver.fft.TransformerException;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Filling, reading and emptying the batch handed to a batch listener.
+ * 
+ * @author Mathew Thomas
+ */
+public class ArrayRecordBatchTestCase {
+    @Test
+    void testFillAndClear() {
+        ArrayRecordBatch batch = new ArrayRecordBatch(3);
+        batch.addRecord("a", 1);
+        batch.addUnresolved("bad", 2);
+        batch.addRecord("c", 3);
+
+        assertTrue(batch.isFull());
+        assertEquals(List.of("a", "c"), batch.getRecords());
+        assertEquals(3, batch.getLineNumber(1));
+        assertEquals("bad", batch.getUnresolvedLine(0));
+        assertEquals(2, batch.getUnresolvedLineNumber(0));
+        assertThrows(IndexOutOfBoundsException.class, () -> batch.getRecord(2));
+
+        batch.clear();
+        assertTrue(batch.isEmpty());
+        assertTrue(batch.getRecords().isEmpty());
+    }
+
+    @Test
+    void testCapacity() {
+        ArrayRecordBatch batch = new ArrayRecordBatch(2);
+        batch.addRecord("a", 1);
+        batch.addUnresolved("bad", 2);
+
+        assertThrows(TransformerException.class, () -> batch.addRecord("c", 3));
+        assertThrows(TransformerException.class, () -> batch.addUnresolved("bad", 3));
+        assertThrows(TransformerException.class, () -> new ArrayRecordBatch(0));
+    }
+}
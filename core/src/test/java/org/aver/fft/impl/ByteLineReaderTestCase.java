@@ -0,0 +1,107 @@
+package org.aver.fft.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.aver.fft.TransformerLimitException;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Lines split on the bytes give the same lines as the decoding reader.
+ * 
+ * @author Mathew Thomas
+ */
+public class ByteLineReaderTestCase {
+    private static final List<String> TEXTS = List.of(
+            "first line\r\nsecond\n\nthird line is longer\rfourth\r\nfünfte\nlast",
+            "a\r\nb\r\n", "\r\r\n\n", "", "x", "déjà vu\r", "naïve,café\nØre,€");
+
+    @Test
+    void testSameLinesAsReader() throws IOException {
+        for (Charset charset : List.of(StandardCharsets.UTF_8, StandardCharsets.ISO_8859_1,
+                Charset.forName("windows-1252"))) {
+            for (String text : TEXTS) {
+                byte[] bytes = text.getBytes(charset);
+                List<String> expected = read(new BoundedLineReader(new InputStreamReader(
+                        new ByteArrayInputStream(bytes), charset), Integer.MAX_VALUE));
+                // the stream hands out a few bytes at a time, so lines and
+                // \r\n pairs are split between reads
+                for (int chunk = 1; chunk <= bytes.length + 1; chunk++) {
+                    assertEquals(expected, read(new ByteLineReader(new Chunked(bytes, chunk),
+                            charset, Integer.MAX_VALUE)), charset + " " + chunk + ": " + text);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testLatin1LinesAreNotDecoded() throws IOException {
+        byte[] bytes = "Øre,naïve\nplain".getBytes(StandardCharsets.ISO_8859_1);
+        ByteLineReader reader = new ByteLineReader(new ByteArrayInputStream(bytes),
+                StandardCharsets.ISO_8859_1, 100);
+        CharSequence line = reader.readLine();
+        assertInstanceOf(ByteLine.class, line);
+        assertEquals("Øre,naïve", line.toString());
+
+        reader = new ByteLineReader(new ByteArrayInputStream("Øre\nplain".getBytes(StandardCharsets.UTF_8)),
+                StandardCharsets.UTF_8, 100);
+        assertInstanceOf(String.class, reader.readLine());
+        assertInstanceOf(ByteLine.class, reader.readLine());
+    }
+
+    @Test
+    void testLongLine() {
+        byte[] bytes = ("short\n" + "x".repeat(200_000) + "\n").getBytes(StandardCharsets.US_ASCII);
+        ByteLineReader reader = new ByteLineReader(new ByteArrayInputStream(bytes),
+                StandardCharsets.US_ASCII, 100_000);
+        TransformerLimitException e = assertThrows(TransformerLimitException.class, () -> read(reader));
+        assertTrue(e.getMessage().contains("Line 2"), e.getMessage());
+    }
+
+    @Test
+    void testAsciiCompatible() {
+        assertTrue(ByteLineReader.isAsciiCompatible(StandardCharsets.UTF_8));
+        assertTrue(ByteLineReader.isAsciiCompatible(StandardCharsets.US_ASCII));
+        assertTrue(ByteLineReader.isAsciiCompatible(Charset.forName("ISO-8859-15")));
+        assertFalse(ByteLineReader.isAsciiCompatible(StandardCharsets.UTF_16));
+        assertFalse(ByteLineReader.isAsciiCompatible(Charset.forName("Shift_JIS")));
+    }
+
+    private static List<String> read(FlatFileTransformer.LineSource reader) throws IOException {
+        List<String> lines = new ArrayList<>();
+        CharSequence line;
+        while ((line = reader.readLine()) != null) {
+            lines.add(line.toString());
+        }
+        return lines;
+    }
+
+    /** Returns at most a given number of bytes per read. */
+    private static final class Chunked extends InputStream {
+        private final ByteArrayInputStream in;
+
+        private final int chunk;
+
+        Chunked(byte[] bytes, int chunk) {
+            this.in = new ByteArrayInputStream(bytes);
+            this.chunk = chunk;
+        }
+
+        @Override
+        public int read() {
+            return in.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            return in.read(b, off, Math.min(len, chunk));
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package org.aver.fft.impl;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Bytes found a word at a time are the bytes found one at a time.
+ * 
+ * @author Mathew Thomas
+ */
+public class ByteScannerTestCase {
+    @Test
+    void testIndexOf() {
+        Random random = new Random(42);
+        byte[] alphabet = { ',', '"', 'a', 0, (byte) 0x80, (byte) 0xff, 0x7f, 0x01 };
+        for (int round = 0; round < 2000; round++) {
+            byte[] bytes = new byte[random.nextInt(40)];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = alphabet[random.nextInt(alphabet.length)];
+            }
+            for (ByteOrder order : new ByteOrder[] { ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN }) {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes).order(order);
+                for (byte b : alphabet) {
+                    int from = bytes.length == 0 ? 0 : random.nextInt(bytes.length);
+                    int to = from + random.nextInt(bytes.length - from + 1);
+                    assertEquals(naive(bytes, b, from, to), ByteScanner.indexOf(buffer, b, from, to));
+                }
+            }
+        }
+    }
+
+    @Test
+    void testByteLine() {
+        ByteBuffer buffer = ByteBuffer.wrap("xxhello, world,\"q\"".getBytes());
+        ByteLine line = new ByteLine().set(buffer, 2, 16);
+        assertEquals(5, TokenList.indexOf(line, ',', 0, line.length()));
+        assertEquals(12, TokenList.indexOf(line, ',', 6, line.length()));
+        assertEquals(-1, TokenList.indexOf(line, ',', 6, 12));
+        assertEquals(13, TokenList.indexOf(line, '"', 0, line.length()));
+        assertEquals(-1, TokenList.indexOf(line, ' ', 0, line.length()));
+        assertEquals(-1, TokenList.indexOf("ab,c", ',', 0, 2));
+        assertEquals(2, TokenList.indexOf("ab,c", ',', 0, 4));
+    }
+
+    private static int naive(byte[] bytes, byte b, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (bytes[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
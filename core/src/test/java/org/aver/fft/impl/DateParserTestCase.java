@@ -0,0 +1,113 @@
+package org.aver.fft.impl;
+
+import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+
+import org.aver.fft.TransformerException;
+import org.aver.fft.TransformerParseException;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Dates read by the compiled parsers.
+ * 
+ * @author Mathew Thomas
+ */
+public class DateParserTestCase {
+    @Test
+    void testFastPathMatchesSimpleDateFormat() throws Exception {
+        List<String> patterns = List.of("MMddyyyy", "yyyyMMdd", "yyyy-MM-dd", "MM/dd/yyyy");
+        List<String> dates = List.of("10212005", "02292008", "02292007", "13012005",
+                "00102005", "12311599", "01010001", "1021200", "1x212005");
+        for (String pattern : patterns) {
+            SimpleDateFormat format = new SimpleDateFormat(pattern);
+            DateParser parser = DateParser.compile(column(pattern), Date.class);
+            for (String date : dates) {
+                // same digits in the order of the pattern
+                String text = pattern.replace("MM", "#1").replace("dd", "#2").replace("yyyy", "#3")
+                        .replace("#1", date.length() < 8 ? date : date.substring(0, 2))
+                        .replace("#2", date.length() < 8 ? "" : date.substring(2, 4))
+                        .replace("#3", date.length() < 8 ? "" : date.substring(4));
+                Object expected;
+                try {
+                    expected = format.parse(text);
+                } catch (java.text.ParseException e) {
+                    assertThrows(TransformerParseException.class, () -> parser.parse(text), text);
+                    continue;
+                }
+                assertEquals(expected, parser.parse(text), pattern + " " + text);
+            }
+        }
+    }
+
+    @Test
+    void testDatesAreNotShared() {
+        DateParser parser = DateParser.compile(column("MMddyyyy"), Date.class);
+        Date first = (Date) parser.parse("10212005");
+        first.setTime(0);
+        assertEquals(LocalDate.of(2005, 10, 21).atStartOfDay(ZoneId.systemDefault()).toInstant(),
+                ((Date) parser.parse("10212005")).toInstant());
+    }
+
+    @Test
+    void testJavaTimeTypes() {
+        assertEquals(LocalDate.of(2005, 10, 21),
+                DateParser.compile(column("MMddyyyy"), LocalDate.class).parse("10212005"));
+        assertEquals(LocalDate.of(2005, 10, 21),
+                DateParser.compile(column(""), LocalDate.class).parse("2005-10-21"));
+        assertEquals(LocalDate.of(2005, 10, 21),
+                DateParser.compile(column("d MMM yyyy"), LocalDate.class).parse("21 Oct 2005"));
+        assertEquals(LocalDateTime.of(2005, 10, 21, 13, 45),
+                DateParser.compile(column("yyyyMMddHHmm"), LocalDateTime.class).parse("200510211345"));
+        assertEquals(LocalDateTime.of(2005, 10, 21, 0, 0),
+                DateParser.compile(column("yyyyMMdd"), LocalDateTime.class).parse("20051021"));
+        assertEquals(Instant.parse("2005-10-21T13:45:00Z"),
+                DateParser.compile(column(""), Instant.class).parse("2005-10-21T13:45:00Z"));
+        assertEquals(LocalDate.of(2005, 10, 21).atStartOfDay(ZoneId.systemDefault()).toInstant(),
+                DateParser.compile(column("yyyyMMdd"), Instant.class).parse("20051021"));
+
+        DateParser parser = DateParser.compile(column("yyyyMMdd"), LocalDate.class);
+        assertThrows(TransformerParseException.class, () -> parser.parse("200502x0"));
+        assertThrows(TransformerParseException.class, () -> parser.parse("2005"));
+        assertThrows(TransformerException.class,
+                () -> DateParser.compile(column("yyyyMMddqqqqqq{"), LocalDate.class));
+    }
+
+    @Test
+    void testSharedBetweenThreads() throws Exception {
+        DateParser parser = DateParser.compile(column("dd-MMM-yyyy"), Date.class);
+        SimpleDateFormat format = new SimpleDateFormat("dd-MMM-yyyy");
+        Thread[] threads = new Thread[8];
+        Throwable[] failure = new Throwable[1];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                try {
+                    for (int i = 0; i < 2000; i++) {
+                        String text = String.format("%02d-Jan-%d", 1 + i % 28, 1990 + i % 100);
+                        Date expected;
+                        synchronized (format) {
+                            expected = format.parse(text);
+                        }
+                        assertEquals(expected, parser.parse(text), text);
+                    }
+                } catch (Throwable e) {
+                    failure[0] = e;
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertNull(failure[0]);
+    }
+
+    private static Column column(String format) {
+        return new Column("date", "java.util.Date", true, 1, format, false);
+    }
+}
@@ -0,0 +1,74 @@
+package org.aver.fft.impl;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.aver.fft.TransformerLimitException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Lines read across the boundaries of the mapped windows.
+ * 
+ * @author Mathew Thomas
+ */
+public class MappedLineReaderTestCase {
+    private static final String TEXT = "first line\r\nsecond\n\nthird line is longer\rfourth\r\n"
+            + "fünfte\nlast";
+
+    private static final List<String> LINES = List.of("first line", "second", "",
+            "third line is longer", "fourth", "fünfte", "last");
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testSmallWindows() throws IOException {
+        Path file = dir.resolve("lines.txt");
+        Files.writeString(file, TEXT, StandardCharsets.UTF_8);
+
+        for (int window = 1; window <= TEXT.length() + 1; window++) {
+            assertEquals(LINES, readAll(file, window), "window " + window);
+        }
+    }
+
+    @Test
+    void testTrailingTerminator() throws IOException {
+        Path file = dir.resolve("lines.txt");
+        Files.writeString(file, "a\r\nb\r\n", StandardCharsets.UTF_8);
+
+        assertEquals(List.of("a", "b"), readAll(file, 2));
+        assertEquals(List.of("a", "b"), readAll(file, MappedLineReader.WINDOW_SIZE));
+    }
+
+    @Test
+    void testLineTooLong() throws IOException {
+        Path file = dir.resolve("lines.txt");
+        Files.writeString(file, "short\n" + "x".repeat(100) + "\nend", StandardCharsets.UTF_8);
+
+        try (MappedLineReader reader = new MappedLineReader(file,
+                StandardCharsets.UTF_8, 10, 4)) {
+            assertEquals("short", reader.readLine().toString());
+            TransformerLimitException e = assertThrows(TransformerLimitException.class,
+                    reader::readLine);
+            assertTrue(e.getMessage().startsWith("Line 2 "), e.getMessage());
+        }
+    }
+
+    private static List<String> readAll(Path file, int window) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (MappedLineReader reader = new MappedLineReader(file,
+                StandardCharsets.UTF_8, Integer.MAX_VALUE, window)) {
+            CharSequence line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line.toString());
+            }
+        }
+        return lines;
+    }
+}
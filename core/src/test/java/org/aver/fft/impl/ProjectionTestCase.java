@@ -0,0 +1,122 @@
+package org.aver.fft.impl;
+
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.aver.fft.Transformer;
+import org.aver.fft.TransformerFactory;
+import org.aver.fft.annotations.Column;
+import org.aver.fft.annotations.Transform;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Lines are tokenized up to the last loaded column only.
+ * 
+ * @author Mathew Thomas
+ */
+public class ProjectionTestCase {
+    /** 200 columns, c1 to c200. */
+    private static final String LINE = IntStream.rangeClosed(1, 200)
+            .mapToObj(i -> "c" + i).collect(Collectors.joining(","));
+
+    @Test
+    void testStopsAfterLastLoadedColumn() {
+        FlatFileTransformer spec = (FlatFileTransformer) TransformerFactory.getTransformer(Wide.class);
+        Record rec = spec.getRecord(Wide.class.getName()).orElseThrow();
+        assertEquals(12, rec.columnsNeeded());
+        assertTrue(rec.isLoaded(11));
+        assertFalse(rec.isLoaded(2));
+        // skipped columns are not loaded
+        assertFalse(rec.isLoaded(149));
+
+        TokenList tokens = new TokenList(spec, rec).tokenize(LINE);
+        assertEquals(12, tokens.size());
+        assertEquals("c12", tokens.get(12));
+
+        // a line with quotes stops there too
+        tokens.tokenize("c1,\"a,b\"" + LINE.substring(5));
+        assertEquals(12, tokens.size());
+        assertEquals("a,b", tokens.get(2));
+        assertEquals("c12", tokens.get(12));
+    }
+
+    @Test
+    void testLoad() {
+        Transformer spec = TransformerFactory.getTransformer(Wide.class);
+        Wide wide = (Wide) spec.loadRecord(LINE);
+        assertEquals("c2", wide.getSecond());
+        assertEquals("c12", wide.getTwelfth());
+
+        // columns after the last loaded one are not read
+        wide = (Wide) spec.loadRecord("a,b,c,d,e,f,g,h,i,j,k,l,\"m\"\"n,o");
+        assertEquals("l", wide.getTwelfth());
+    }
+
+    @Test
+    void testShortLineForSkippedFixedColumn() {
+        Fixed fixed = (Fixed) TransformerFactory.getTransformer(Fixed.class).loadRecord("abcdef");
+        assertEquals("abc", fixed.getCode());
+    }
+
+    @Transform(columnSeparator = ",")
+    public static class Wide {
+        private String second;
+
+        private String twelfth;
+
+        private String ignored;
+
+        @Column(position = 2)
+        public String getSecond() {
+            return second;
+        }
+
+        public void setSecond(String second) {
+            this.second = second;
+        }
+
+        @Column(position = 12)
+        public String getTwelfth() {
+            return twelfth;
+        }
+
+        public void setTwelfth(String twelfth) {
+            this.twelfth = twelfth;
+        }
+
+        @Column(position = 150, skip = true)
+        public String getIgnored() {
+            return ignored;
+        }
+
+        public void setIgnored(String ignored) {
+            this.ignored = ignored;
+        }
+    }
+
+    @Transform(columnSeparatorType = Transformer.ColumnSeparator.FIXLENGTH)
+    public static class Fixed {
+        private String code;
+
+        private String filler;
+
+        @Column(position = 1, start = 1, end = 3)
+        public String getCode() {
+            return code;
+        }
+
+        public void setCode(String code) {
+            this.code = code;
+        }
+
+        @Column(position = 2, start = 4, end = 40, skip = true)
+        public String getFiller() {
+            return filler;
+        }
+
+        public void setFiller(String filler) {
+            this.filler = filler;
+        }
+    }
+}
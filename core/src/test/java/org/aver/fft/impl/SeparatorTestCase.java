@@ -0,0 +1,59 @@
+package org.aver.fft.impl;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The skip table search finds the same separators as
+ * <code>String.indexOf</code>.
+ * 
+ * @author Mathew Thomas
+ */
+public class SeparatorTestCase {
+    @Test
+    void testIndexOf() {
+        Random random = new Random(42);
+        for (String text : new String[] { ",", "||", "\t|", "aab", "::;", "ĀĀ|" }) {
+            Separator separator = new Separator(text, false);
+            for (int n = 0; n < 2000; n++) {
+                StringBuilder line = new StringBuilder();
+                int length = random.nextInt(40);
+                for (int i = 0; i < length; i++) {
+                    // mostly characters of the separator, to find partial
+                    // matches, and one that shares its low byte with '|'
+                    line.append(random.nextInt(4) == 0 ? "xĀż".charAt(random.nextInt(3))
+                            : text.charAt(random.nextInt(text.length())));
+                }
+                String s = line.toString();
+                for (int from = 0; from <= s.length(); from++) {
+                    assertEquals(s.indexOf(text, from), separator.indexOf(s, from, s.length()),
+                            s + " from " + from);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testColumns() {
+        Separator separator = new Separator(" ", true);
+        String line = "  a   b ";
+        int s = separator.start(line, line.length());
+        assertEquals(2, s);
+        int e = separator.columnEnd(line, s, line.length());
+        assertEquals(3, e);
+        s = separator.nextColumn(line, e, line.length());
+        assertEquals(6, s);
+        e = separator.columnEnd(line, s, line.length());
+        assertEquals(7, e);
+        // trailing separators end the line
+        assertEquals(-1, separator.nextColumn(line, e, line.length()));
+
+        separator = new Separator("||", false);
+        line = "a||||b";
+        assertEquals(3, separator.nextColumn(line, 1, line.length()));
+        assertEquals(3, separator.columnEnd(line, 3, line.length()));
+        assertEquals(-1, separator.nextColumn(line, line.length(), line.length()));
+    }
+}
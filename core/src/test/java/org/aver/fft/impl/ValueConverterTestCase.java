@@ -0,0 +1,115 @@
+package org.aver.fft.impl;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.URL;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.List;
+
+import org.aver.fft.TransformerException;
+import org.aver.fft.TransformerParseException;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Conversions from a span of the line give the same values as the string
+ * conversions.
+ * 
+ * @author Mathew Thomas
+ */
+public class ValueConverterTestCase {
+    private static final List<String> VALUES = List.of("", " ", "0", "-0", "+0",
+            "7", " 42 ", "-17", "+17", "2147483647", "2147483648", "-2147483648",
+            "-2147483649", "9223372036854775807", "9223372036854775808",
+            "-9223372036854775808", "99999999999999999999", "12.89", "-12.89",
+            ".5", "5.", ".", "-", "+", "1e3", "1.5E-7", "0.1", "0.30000000000000004",
+            "123456789012345678", "9007199254740993", "3.14159265358979323846",
+            "0.0000000000000000000001", "0.00000000000000000000001", "NaN",
+            "Infinity", "1_000", "12a", "١٢", "00012.5000", "1d",
+            "true", "TRUE", " yes", "Y", "y ", "on", "On", "1", "no", "false",
+            "yess", "tru");
+
+    @Test
+    void testSpansMatchStrings() {
+        for (String value : VALUES) {
+            String line = "<" + value + ">";
+            int from = 1;
+            int to = line.length() - 1;
+            assertEquals(ValueConverter.toInt(value), ValueConverter.toInt(line, from, to), value);
+            assertEquals(ValueConverter.toLong(value), ValueConverter.toLong(line, from, to), value);
+            assertEquals(Double.doubleToLongBits(ValueConverter.toDouble(value)),
+                    Double.doubleToLongBits(ValueConverter.toDouble(line, from, to)), value);
+            assertEquals(ValueConverter.toBoolean(value), ValueConverter.toBoolean(line, from, to), value);
+        }
+    }
+
+    @Test
+    void testTypes() {
+        assertEquals("a b", convert(String.class, "", "a b"));
+        assertEquals(7, convert(int.class, "", " 7 "));
+        assertEquals(7, convert(Integer.class, "", "7"));
+        assertEquals(0, convert(Integer.class, "", "x"));
+        assertEquals(7L, convert(Long.class, "", "7"));
+        assertEquals(1.5d, convert(Double.class, "", "1.5"));
+        assertEquals(1.5f, convert(Float.class, "", "1.5"));
+        assertEquals(0f, convert(float.class, "", "x"));
+        assertEquals((short) 7, convert(Short.class, "", "7"));
+        assertEquals((byte) 7, convert(Byte.class, "", "7"));
+        assertEquals((byte) 0, convert(byte.class, "", "300"));
+        assertEquals(true, convert(Boolean.class, "", "yes"));
+        assertEquals('a', convert(Character.class, "", "abc"));
+        assertEquals(' ', convert(char.class, "", ""));
+        assertEquals(new BigDecimal("12.30"), convert(BigDecimal.class, "", " 12.30 "));
+        assertEquals(BigDecimal.ZERO, convert(BigDecimal.class, "", "12,30"));
+        assertEquals(new BigInteger("123456789012345678901234"),
+                convert(BigInteger.class, "", "123456789012345678901234"));
+        assertEquals(BigInteger.ZERO, convert(BigInteger.class, "", "1.5"));
+        assertEquals(new GregorianCalendar(2005, 9, 21).getTime(),
+                convert(Date.class, "MMddyyyy", "10212005"));
+        assertEquals(LocalDate.of(2005, 10, 21), convert(LocalDate.class, "", "2005-10-21"));
+        assertEquals(LocalDateTime.of(2005, 10, 21, 8, 30),
+                convert(LocalDateTime.class, "", "2005-10-21T08:30"));
+        assertEquals(Instant.parse("2005-10-21T08:30:00Z"),
+                convert(Instant.class, "", "2005-10-21T08:30:00Z"));
+        assertEquals(java.sql.Date.valueOf("2005-10-21"),
+                convert(java.sql.Date.class, "", "2005-10-21"));
+        assertEquals(java.sql.Date.valueOf("2005-10-21"),
+                convert(java.sql.Date.class, "MMddyyyy", "10212005"));
+        assertEquals(Time.valueOf("08:30:00"), convert(Time.class, "", "08:30:00"));
+        assertEquals(Timestamp.valueOf("2005-10-21 08:30:00.5"),
+                convert(Timestamp.class, "", "2005-10-21 08:30:00.5"));
+        assertEquals(new GregorianCalendar(2005, 9, 21).getTime(),
+                ((Calendar) convert(Calendar.class, "MMddyyyy", "10212005")).getTime());
+        assertEquals(new File("data/in.txt"), convert(File.class, "", "data/in.txt"));
+        assertEquals("http://example.com/a",
+                ((URL) convert(URL.class, "", "http://example.com/a")).toString());
+
+        assertThrows(TransformerParseException.class,
+                () -> convert(java.sql.Date.class, "", "21.10.2005"));
+        assertThrows(TransformerParseException.class, () -> convert(URL.class, "", "no scheme"));
+        // BeanUtils converted these too, they are no longer supported
+        assertThrows(TransformerException.class, () -> convert(Class.class, "", "java.lang.String"));
+        assertThrows(TransformerException.class, () -> convert(String[].class, "", "a,b"));
+    }
+
+    private static Object convert(Class<?> type, String format, String value) {
+        Column col = new Column("value", type.getName(), false, 1, format, false);
+        return ValueConverter.forType(col, type).convert(value);
+    }
+
+    @Test
+    void testDecimals() {
+        for (int i = 0; i < 100_000; i++) {
+            String value = (i * 7919L % 1_000_000) + "." + String.format("%02d", i % 100);
+            assertEquals(Double.parseDouble(value), ValueConverter.toDouble(value, 0, value.length()), value);
+        }
+    }
+}
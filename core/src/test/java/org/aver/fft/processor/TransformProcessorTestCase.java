@@ -0,0 +1,169 @@
+package org.aver.fft.processor;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.aver.fft.Transformer;
+import org.aver.fft.TransformerFactory;
+import org.aver.fft.impl.FlatFileTransformer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compiles an annotated bean with the processor and loads records through the
+ * generated binder.
+ * 
+ * @author Mathew Thomas
+ */
+public class TransformProcessorTestCase {
+    private static final String BEAN = """
+            package sample;
+
+            import java.util.Date;
+
+            import org.aver.fft.annotations.Column;
+            import org.aver.fft.annotations.Transform;
+
+            @Transform(columnSeparator = ",")
+            public class Payment {
+                private String name;
+                private int month;
+                private Integer year;
+                private double amount;
+                private boolean active;
+                private Date date;
+                private String ignored;
+
+                @Column(position = 1, required = true)
+                public String getName() { return name; }
+                public void setName(String name) { this.name = name; }
+
+                @Column(position = 2, required = true)
+                public int getMonth() { return month; }
+                public void setMonth(int month) { this.month = month; }
+
+                @Column(position = 3)
+                public Integer getYear() { return year; }
+                public void setYear(Integer year) { this.year = year; }
+
+                @Column(position = 4)
+                public double getAmount() { return amount; }
+                public void setAmount(double amount) { this.amount = amount; }
+
+                @Column(position = 5)
+                public boolean getActive() { return active; }
+                public void setActive(boolean active) { this.active = active; }
+
+                @Column(position = 6, format = "MMddyyyy")
+                public Date getDate() { return date; }
+                public void setDate(Date date) { this.date = date; }
+
+                @Column(position = 7, skip = true)
+                public String getIgnored() { return ignored; }
+                public void setIgnored(String ignored) { this.ignored = ignored; }
+            }
+            """;
+
+    private static final String OTHER_BEAN = """
+            package sample;
+
+            import org.aver.fft.annotations.Column;
+            import org.aver.fft.annotations.Transform;
+
+            @Transform
+            public class Refund {
+                private String name;
+
+                @Column(position = 1)
+                public String getName() { return name; }
+                public void setName(String name) { this.name = name; }
+            }
+            """;
+
+    @TempDir
+    Path dir;
+
+    private Path classes;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        classes = Files.createDirectories(dir.resolve("classes"));
+        compile("Payment", BEAN);
+    }
+
+    /**
+     * Compiles one bean with the processor into the class output, as an
+     * incremental build that only sees that bean would.
+     */
+    private void compile(String name, String bean) throws Exception {
+        Path source = dir.resolve("src/sample/" + name + ".java");
+        Files.createDirectories(source.getParent());
+        Files.writeString(source, bean, StandardCharsets.UTF_8);
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager files = compiler.getStandardFileManager(
+                diagnostics, null, StandardCharsets.UTF_8)) {
+            String library = Path.of(Transformer.class.getProtectionDomain()
+                    .getCodeSource().getLocation().toURI()).toString();
+            List<String> options = List.of("-classpath",
+                    library + File.pathSeparator + classes, "-d",
+                    classes.toString());
+            JavaCompiler.CompilationTask task = compiler.getTask(null, files,
+                    diagnostics, options, null,
+                    files.getJavaFileObjects(source.toFile()));
+            task.setProcessors(List.of(new TransformProcessor()));
+            assertTrue(task.call(), diagnostics.getDiagnostics().toString());
+        }
+    }
+
+    @Test
+    void testBinderIsGenerated() throws IOException {
+        assertTrue(Files.exists(classes.resolve("sample/Payment_RecordBinder.class")));
+        assertEquals("sample.Payment_RecordBinder", Files.readString(
+                classes.resolve("META-INF/services/org.aver.fft.spi.RecordBinder"))
+                .trim());
+    }
+
+    @Test
+    void testServiceFileKeepsEarlierBinders() throws Exception {
+        compile("Refund", OTHER_BEAN);
+        assertEquals(List.of("sample.Payment_RecordBinder", "sample.Refund_RecordBinder"),
+                Files.readAllLines(classes.resolve(
+                        "META-INF/services/org.aver.fft.spi.RecordBinder")));
+    }
+
+    @Test
+    void testRecordIsLoadedThroughBinder() throws Exception {
+        try (URLClassLoader loader = new URLClassLoader(
+                new URL[] { classes.toUri().toURL() }, getClass().getClassLoader())) {
+            Class<?> type = loader.loadClass("sample.Payment");
+            Transformer transformer = TransformerFactory.getTransformer(type);
+            assertTrue(((FlatFileTransformer) transformer).hasRecordBinder());
+
+            Object bean = transformer.loadRecord("Mathew,02,2008,12.89,yes,10212005,x");
+            assertEquals("Mathew", type.getMethod("getName").invoke(bean));
+            assertEquals(2, type.getMethod("getMonth").invoke(bean));
+            assertEquals(2008, type.getMethod("getYear").invoke(bean));
+            assertEquals(12.89, (Double) type.getMethod("getAmount").invoke(bean), 0.01);
+            assertEquals(true, type.getMethod("getActive").invoke(bean));
+            assertTrue(type.getMethod("getDate").invoke(bean).toString().contains("2005"));
+            assertNull(type.getMethod("getIgnored").invoke(bean));
+        }
+    }
+
+}
@@ -0,0 +1,472 @@
+/*
+ *  Copyright 2005 AverConsulting Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.aver.fft.processor;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Generates an <code>org.aver.fft.spi.RecordBinder</code> for every class
+ * annotated with <code>@Transform</code>, and registers the binders in
+ * <code>META-INF/services</code> so that the <code>TransformerFactory</code>
+ * finds them. The binder is written next to the bean as
+ * <code>&lt;Bean&gt;_RecordBinder</code>; it captures the <code>@Column</code>
+ * layout and calls the setters directly, so the transformer needs no
+ * reflection to read the annotations, create beans or load records.
+ * <p>
+ * The annotations are matched by name, so this processor does not depend on
+ * the library itself.
+ * <p>
+ * The <code>org.aver.fft.binders</code> option restricts generation to the
+ * beans whose qualified name matches the given regular expression; the other
+ * beans keep the reflective binding.
+ *
+ * @author Mathew Thomas
+ */
+@SupportedAnnotationTypes(TransformProcessor.TRANSFORM)
+@SupportedOptions(TransformProcessor.BINDERS_OPTION)
+public class TransformProcessor extends AbstractProcessor {
+    static final String TRANSFORM = "org.aver.fft.annotations.Transform";
+
+    static final String COLUMN = "org.aver.fft.annotations.Column";
+
+    static final String SERVICE_FILE = "META-INF/services/org.aver.fft.spi.RecordBinder";
+
+    static final String BINDER_SUFFIX = "_RecordBinder";
+
+    static final String BINDERS_OPTION = "org.aver.fft.binders";
+
+    /** Binders written during this compilation. */
+    private final Set<String> binders = new TreeSet<>();
+
+    private final List<Element> originatingElements = new ArrayList<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations,
+            RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            writeServiceFile();
+            return false;
+        }
+
+        TypeElement transform = processingEnv.getElementUtils()
+                .getTypeElement(TRANSFORM);
+        if (transform == null) {
+            return false;
+        }
+        for (Element e : roundEnv.getElementsAnnotatedWith(transform)) {
+            if (e.getKind() != ElementKind.CLASS) {
+                warn(e, "@Transform is only supported on classes");
+                continue;
+            }
+            TypeElement type = (TypeElement) e;
+            if (!isIncluded(type)) {
+                continue;
+            }
+            if (!isAccessible(type)) {
+                warn(e, "no record binder generated, the class must not be private and a nested class must be static");
+                continue;
+            }
+            try {
+                writeBinder(type);
+            } catch (IOException ex) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                        "Cannot write record binder: " + ex.getMessage(), e);
+            }
+        }
+        return false;
+    }
+
+    private boolean isIncluded(TypeElement type) {
+        String include = processingEnv.getOptions().get(BINDERS_OPTION);
+        return include == null
+                || Pattern.matches(include, type.getQualifiedName().toString());
+    }
+
+    private static boolean isAccessible(TypeElement type) {
+        for (Element e = type; e.getKind().isClass() || e.getKind().isInterface(); e = e.getEnclosingElement()) {
+            TypeElement t = (TypeElement) e;
+            if (t.getModifiers().contains(Modifier.PRIVATE)) {
+                return false;
+            }
+            if (t.getNestingKind() == NestingKind.MEMBER
+                    && !t.getModifiers().contains(Modifier.STATIC)) {
+                return false;
+            }
+            if (t.getNestingKind() == NestingKind.LOCAL
+                    || t.getNestingKind() == NestingKind.ANONYMOUS) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * One <code>@Column</code> annotated method.
+     */
+    private record ColumnInfo(String name, TypeMirror type, int position,
+            boolean required, String format, boolean skip, int start, int end,
+            boolean dedupe, ExecutableElement setter) {
+    }
+
+    private void writeBinder(TypeElement type) throws IOException {
+        String packageName = processingEnv.getElementUtils()
+                .getPackageOf(type).getQualifiedName().toString();
+        String binaryName = processingEnv.getElementUtils().getBinaryName(type)
+                .toString();
+        String simpleName = (packageName.isEmpty() ? binaryName
+                : binaryName.substring(packageName.length() + 1)).replace('$', '_')
+                + BINDER_SUFFIX;
+        String qualifiedName = packageName.isEmpty() ? simpleName
+                : packageName + "." + simpleName;
+        String beanType = type.getQualifiedName().toString();
+
+        List<ColumnInfo> columns = readColumns(type);
+
+        JavaFileObject file = processingEnv.getFiler().createSourceFile(
+                qualifiedName, type);
+        try (Writer out = file.openWriter()) {
+            if (!packageName.isEmpty()) {
+                out.write("package " + packageName + ";\n\n");
+            }
+            out.write("import java.util.List;\n\n");
+            out.write("import org.aver.fft.spi.ColumnDefinition;\n");
+            out.write("import org.aver.fft.spi.ColumnValues;\n");
+            out.write("import org.aver.fft.spi.RecordBinder;\n");
+            out.write("import org.aver.fft.spi.TransformDefinition;\n\n");
+            out.write("/**\n * Record binder for {@link " + beanType
+                    + "}. Generated from its annotations, do not edit.\n */\n");
+            out.write("@javax.annotation.processing.Generated(\""
+                    + TransformProcessor.class.getName() + "\")\n");
+            out.write("public final class " + simpleName
+                    + " implements RecordBinder {\n");
+
+            out.write("    private static final List<ColumnDefinition> COLUMNS = List.of(");
+            for (int i = 0; i < columns.size(); i++) {
+                ColumnInfo c = columns.get(i);
+                out.write(i == 0 ? "\n" : ",\n");
+                out.write("            new ColumnDefinition("
+                        + literal(c.name()) + ", " + classLiteral(c.type()) + ", "
+                        + c.position() + ", " + c.required() + ", "
+                        + literal(c.format()) + ", " + c.skip() + ", "
+                        + c.start() + ", " + c.end() + ", " + c.dedupe() + ")");
+            }
+            out.write(");\n\n");
+
+            out.write("    private static final TransformDefinition TRANSFORM = "
+                    + transformDefinition(type) + ";\n\n");
+
+            out.write("    @Override\n");
+            out.write("    public Class<?> getBeanClass() {\n");
+            out.write("        return " + beanType + ".class;\n");
+            out.write("    }\n\n");
+
+            out.write("    @Override\n");
+            out.write("    public List<ColumnDefinition> getColumns() {\n");
+            out.write("        return COLUMNS;\n");
+            out.write("    }\n\n");
+
+            out.write("    @Override\n");
+            out.write("    public TransformDefinition getTransform() {\n");
+            out.write("        return TRANSFORM;\n");
+            out.write("    }\n\n");
+
+            out.write("    @Override\n");
+            out.write("    public Object newBean() {\n");
+            out.write("        return " + (hasDefaultConstructor(type)
+                    ? "new " + beanType + "()" : "null") + ";\n");
+            out.write("    }\n\n");
+
+            out.write("    @Override\n");
+            out.write("    public void bind(Object target, ColumnValues values) {\n");
+            out.write("        " + beanType + " bean = (" + beanType + ") target;\n");
+            for (ColumnInfo c : columns) {
+                if (c.skip() || c.setter() == null) {
+                    continue;
+                }
+                out.write("        bean." + c.setter().getSimpleName() + "("
+                        + value(c) + ");\n");
+            }
+            out.write("    }\n");
+            out.write("}\n");
+        }
+
+        binders.add(qualifiedName);
+        originatingElements.add(type);
+    }
+
+    /**
+     * Returns the expression that creates the
+     * <code>TransformDefinition</code> of the class annotation.
+     */
+    private String transformDefinition(TypeElement type) {
+        Map<? extends ExecutableElement, ? extends AnnotationValue> values = processingEnv
+                .getElementUtils().getElementValuesWithDefaults(
+                        findAnnotation(type, TRANSFORM));
+        VariableElement separatorType = (VariableElement) attribute(values,
+                "columnSeparatorType");
+        return "new TransformDefinition(\n            org.aver.fft.Transformer.ColumnSeparator."
+                + separatorType.getSimpleName() + ", "
+                + constant(attribute(values, "columnSeparator")) + ", "
+                + constant(attribute(values, "collapseSeparators")) + ",\n            "
+                + constant(attribute(values, "beanCreator")) + ", "
+                + constant(attribute(values, "skipFirstLine")) + ", "
+                + constant(attribute(values, "charset")) + ",\n            "
+                + constant(attribute(values, "maxLineLength")) + ", "
+                + constant(attribute(values, "maxLines")) + ", "
+                + constant(attribute(values, "maxFileSize")) + ",\n            "
+                + constant(attribute(values, "recordIdentifier")) + ", "
+                + constant(attribute(values, "recordIdentifierColumn")) + ")";
+    }
+
+    private List<ColumnInfo> readColumns(TypeElement type) {
+        List<ExecutableElement> methods = ElementFilter.methodsIn(
+                processingEnv.getElementUtils().getAllMembers(type));
+        List<ColumnInfo> columns = new ArrayList<>();
+        for (ExecutableElement m : methods) {
+            AnnotationMirror column = findAnnotation(m, COLUMN);
+            if (column == null || !m.getModifiers().contains(Modifier.PUBLIC)) {
+                continue;
+            }
+
+            // same naming rule the transformer applies at runtime
+            String colname = m.getSimpleName().toString();
+            boolean isSetter = colname.startsWith("set");
+            if (colname.startsWith("get") || isSetter) {
+                colname = colname.substring(3);
+            }
+            colname = Character.toLowerCase(colname.charAt(0))
+                    + colname.substring(1);
+
+            TypeMirror propertyType = isSetter && m.getParameters().size() == 1
+                    ? m.getParameters().get(0).asType() : m.getReturnType();
+
+            Map<? extends ExecutableElement, ? extends AnnotationValue> values = processingEnv
+                    .getElementUtils().getElementValuesWithDefaults(column);
+            columns.add(new ColumnInfo(colname, propertyType,
+                    (Integer) attribute(values, "position"),
+                    (Boolean) attribute(values, "required"),
+                    (String) attribute(values, "format"),
+                    (Boolean) attribute(values, "skip"),
+                    (Integer) attribute(values, "start"),
+                    (Integer) attribute(values, "end"),
+                    (Boolean) attribute(values, "dedupe"),
+                    findSetter(methods, colname, propertyType)));
+        }
+        columns.sort(Comparator.comparingInt(ColumnInfo::position));
+        return columns;
+    }
+
+    private ExecutableElement findSetter(List<ExecutableElement> methods,
+            String property, TypeMirror type) {
+        String name = "set" + Character.toUpperCase(property.charAt(0))
+                + property.substring(1);
+        for (ExecutableElement m : methods) {
+            if (m.getSimpleName().contentEquals(name)
+                    && m.getModifiers().contains(Modifier.PUBLIC)
+                    && !m.getModifiers().contains(Modifier.STATIC)
+                    && m.getParameters().size() == 1
+                    && processingEnv.getTypeUtils().isSameType(
+                            m.getParameters().get(0).asType(), type)) {
+                return m;
+            }
+        }
+        return null;
+    }
+
+    private boolean hasDefaultConstructor(TypeElement type) {
+        if (type.getModifiers().contains(Modifier.ABSTRACT)) {
+            return false;
+        }
+        for (ExecutableElement ctor : ElementFilter.constructorsIn(type
+                .getEnclosedElements())) {
+            if (ctor.getParameters().isEmpty()
+                    && !ctor.getModifiers().contains(Modifier.PRIVATE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the expression that reads the column value in the property
+     * type.
+     */
+    private String value(ColumnInfo c) {
+        TypeMirror type = c.type();
+        String getter = switch (type.getKind()) {
+            case INT -> "getInt";
+            case LONG -> "getLong";
+            case DOUBLE -> "getDouble";
+            case FLOAT -> "getFloat";
+            case SHORT -> "getShort";
+            case BYTE -> "getByte";
+            case BOOLEAN -> "getBoolean";
+            case CHAR -> "getChar";
+            default -> switch (erasure(type)) {
+                case "java.lang.Integer" -> "getInt";
+                case "java.lang.Long" -> "getLong";
+                case "java.lang.Double" -> "getDouble";
+                case "java.lang.Float" -> "getFloat";
+                case "java.lang.Short" -> "getShort";
+                case "java.lang.Byte" -> "getByte";
+                case "java.lang.Boolean" -> "getBoolean";
+                case "java.lang.Character" -> "getChar";
+                case "java.lang.String", "java.lang.CharSequence",
+                        "java.lang.Object" -> "getString";
+                default -> null;
+            };
+        };
+        if (getter == null) {
+            return "(" + erasure(type) + ") values.getObject(" + c.position() + ")";
+        }
+        return "values." + getter + "(" + c.position() + ")";
+    }
+
+    private String classLiteral(TypeMirror type) {
+        if (type.getKind().isPrimitive() || type.getKind() == TypeKind.VOID) {
+            return type.toString() + ".class";
+        }
+        return erasure(type) + ".class";
+    }
+
+    private String erasure(TypeMirror type) {
+        return processingEnv.getTypeUtils().erasure(type).toString();
+    }
+
+    private String literal(String value) {
+        return processingEnv.getElementUtils().getConstantExpression(value);
+    }
+
+    private String constant(Object value) {
+        return processingEnv.getElementUtils().getConstantExpression(value);
+    }
+
+    private static AnnotationMirror findAnnotation(Element e, String name) {
+        for (AnnotationMirror mirror : e.getAnnotationMirrors()) {
+            TypeElement annotation = (TypeElement) mirror.getAnnotationType()
+                    .asElement();
+            if (annotation.getQualifiedName().contentEquals(name)) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    private static Object attribute(
+            Map<? extends ExecutableElement, ? extends AnnotationValue> values,
+            String name) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> e : values
+                .entrySet()) {
+            if (e.getKey().getSimpleName().contentEquals(name)) {
+                return e.getValue().getValue();
+            }
+        }
+        throw new IllegalStateException("Annotation has no attribute " + name);
+    }
+
+    private void writeServiceFile() {
+        if (binders.isEmpty()) {
+            return;
+        }
+        Set<String> entries = new TreeSet<>(binders);
+        entries.addAll(readServiceFile());
+        try {
+            FileObject file = processingEnv.getFiler().createResource(
+                    StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE,
+                    originatingElements.toArray(new Element[0]));
+            try (Writer out = file.openWriter()) {
+                for (String binder : entries) {
+                    out.write(binder);
+                    out.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Cannot write " + SERVICE_FILE + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads the binders registered by an earlier compilation into the same
+     * output, so that an incremental build that only sees some of the beans
+     * keeps the others registered.
+     * 
+     * @return the registered binders, empty if there is no service file yet
+     */
+    private Set<String> readServiceFile() {
+        Set<String> entries = new TreeSet<>();
+        try {
+            FileObject file = processingEnv.getFiler().getResource(
+                    StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE);
+            try (BufferedReader in = new BufferedReader(file.openReader(true))) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    int comment = line.indexOf('#');
+                    String entry = (comment < 0 ? line : line.substring(0, comment)).trim();
+                    if (!entry.isEmpty()) {
+                        entries.add(entry);
+                    }
+                }
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            // no service file written yet
+        }
+        return entries;
+    }
+
+    private void warn(Element e, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                message, e);
+    }
+}